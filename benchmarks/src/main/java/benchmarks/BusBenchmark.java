@@ -0,0 +1,61 @@
+package benchmarks;
+
+import cache.Protocol;
+import cache.instruction.CacheInstructionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bus transactions on a block shared by every cache: all of them load it, then one stores to it. Each transaction
+ * ends in BusController.alert snooping the other caches, so the cost of a round grows with the number of caches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BusBenchmark {
+
+    private static final int CACHE_SIZE = 4096;
+    private static final int ASSOCIATIVITY = 2;
+    private static final int BLOCK_SIZE = 32;
+    private static final int ADDRESS = 0x10000000;
+
+    @Param({"MESI", "Dragon"})
+    public Protocol protocol;
+
+    @Param({"4", "8", "16", "32", "64"})
+    public int numCaches;
+
+    private CacheSystem system;
+    private int writer;
+
+    @Setup
+    public void attachCaches() {
+        system = new CacheSystem(protocol, numCaches, CACHE_SIZE, ASSOCIATIVITY, BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public int shareThenWrite() {
+        for (int i = 0; i < numCaches; i++) {
+            system.ask(i, CacheInstructionType.READ, ADDRESS);
+        }
+        system.run();
+        system.ask(writer, CacheInstructionType.WRITE, ADDRESS);
+        system.run();
+        writer = (writer + 1) % numCaches;
+        return system.getBusTraffic();
+    }
+}
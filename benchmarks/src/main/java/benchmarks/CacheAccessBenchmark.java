@@ -0,0 +1,65 @@
+package benchmarks;
+
+import cache.Protocol;
+import cache.instruction.CacheInstructionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A load of a single cache, from the ask to its completion: hits cycle through blocks already in the cache, misses
+ * stream through blocks never seen, each read from memory over the bus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CacheAccessBenchmark {
+
+    private static final int CACHE_SIZE = 4096;
+    private static final int ASSOCIATIVITY = 2;
+    private static final int BLOCK_SIZE = 32;
+    private static final int NUM_BLOCKS = CACHE_SIZE / BLOCK_SIZE;
+
+    @Param({"MESI", "Dragon"})
+    public Protocol protocol;
+
+    private CacheSystem system;
+    private int hits;
+    private int missAddress;
+
+    @Setup
+    public void fillCache() {
+        system = new CacheSystem(protocol, 1, CACHE_SIZE, ASSOCIATIVITY, BLOCK_SIZE);
+        for (int i = 0; i < NUM_BLOCKS; i++) {
+            system.ask(0, CacheInstructionType.READ, i * BLOCK_SIZE);
+            system.run();
+        }
+        missAddress = CACHE_SIZE;
+    }
+
+    @Benchmark
+    public void hit() {
+        system.ask(0, CacheInstructionType.READ, (hits++ % NUM_BLOCKS) * BLOCK_SIZE);
+        system.run();
+    }
+
+    @Benchmark
+    public void miss() {
+        system.ask(0, CacheInstructionType.READ, missAddress);
+        system.run();
+        missAddress += BLOCK_SIZE;
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import bus.ArbitrationPolicy;
+import bus.Interconnect;
+import cache.AddressMapper;
+import cache.Cache;
+import cache.Protocol;
+import cache.dragon.DragonCache;
+import cache.instruction.CacheInstructionType;
+import cache.mesi.MesiCache;
+import cache.mesif.MesifCache;
+import cache.moesi.MoesiCache;
+import cache.replacement.ReplacementPolicy;
+import common.Clocked;
+import cpu.Cpu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caches on a single atomic bus in front of flat memory, driven one access at a time instead of by traces.
+ * Every cache is linked to a non-blocking core that only receives the completions.
+ */
+final class CacheSystem {
+
+    private final Interconnect interconnect;
+    private final List<Cache> caches;
+
+    CacheSystem(Protocol protocol, int numCaches, int cacheSize, int associativity, int blockSize) {
+        this.interconnect = new Interconnect(1, 0, false, ArbitrationPolicy.FIFO, 0, null, null);
+        this.caches = new ArrayList<>(numCaches);
+        AddressMapper addressMapper = AddressMapper.create(cacheSize / (blockSize * associativity), blockSize, false);
+        for (int i = 0; i < numCaches; i++) {
+            Cache cache = createCache(protocol, i, addressMapper, associativity);
+            cache.linkCpu(new Cpu(cache, true, 0));
+            interconnect.attach(cache);
+            caches.add(cache);
+        }
+    }
+
+    /**
+     * Starts an access of the cache, run completes it.
+     */
+    void ask(int cache, CacheInstructionType type, int address) {
+        caches.get(cache).ask(type, address);
+    }
+
+    /**
+     * Runs the system until no access is in progress, jumping over the cycles in which nothing happens.
+     */
+    void run() {
+        while (!caches.stream().allMatch(Cache::isIdle)) {
+            int nextEvent = interconnect.cyclesUntilNextEvent();
+            for (Cache c : caches) {
+                nextEvent = Math.min(nextEvent, c.cyclesUntilNextEvent());
+            }
+            if (nextEvent > 1 && nextEvent != Clocked.NO_EVENT) {
+                int skipped = nextEvent - 1;
+                interconnect.skipCycles(skipped);
+                caches.forEach(c -> c.skipCycles(skipped));
+            }
+            interconnect.runForOneCycle();
+            caches.forEach(c -> c.runForOneCycle());
+            interconnect.arbitrate();
+        }
+    }
+
+    int getBusTraffic() {
+        return interconnect.getBusTraffic();
+    }
+
+    private static Cache createCache(Protocol protocol, int id, AddressMapper addressMapper, int associativity) {
+        switch (protocol) {
+            case MESI:
+                return new MesiCache(id, addressMapper, associativity, 1, 0, null, ReplacementPolicy.LRU, id);
+            case MOESI:
+                return new MoesiCache(id, addressMapper, associativity, 1, 0, null, ReplacementPolicy.LRU, id);
+            case MESIF:
+                return new MesifCache(id, addressMapper, associativity, 1, 0, null, ReplacementPolicy.LRU, id);
+            default:
+                return new DragonCache(id, addressMapper, associativity, 1, 0, null, ReplacementPolicy.LRU, id);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import instruction.BinaryTraceWriter;
+import instruction.Instruction;
+import instruction.InstructionArray;
+import instruction.InstructionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a trace file of a million instructions, into the instruction queue and into an instruction array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InstructionParserBenchmark {
+
+    private static final int TRACE_LENGTH = 1_000_000;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private Path trace;
+
+    @Setup
+    public void writeTrace() throws IOException {
+        Path text = Files.createTempFile("trace", ".data");
+        SyntheticTrace.write(text, 0, TRACE_LENGTH);
+        if (format.equals("text")) {
+            trace = text;
+        } else {
+            trace = Files.createTempFile("trace", ".bin");
+            BinaryTraceWriter.convert(text.toString(), trace.toString(), false);
+            Files.delete(text);
+        }
+    }
+
+    @TearDown
+    public void deleteTrace() throws IOException {
+        Files.delete(trace);
+    }
+
+    @Benchmark
+    public Queue<Instruction> parseInstructions() {
+        return InstructionParser.parseInstructions(trace.toString());
+    }
+
+    @Benchmark
+    public InstructionArray readAll() {
+        return InstructionArray.readAll(InstructionParser.openTrace(trace.toString()));
+    }
+}
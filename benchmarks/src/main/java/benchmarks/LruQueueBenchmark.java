@@ -0,0 +1,50 @@
+package benchmarks;
+
+import cache.lru.LruQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updating the LRU order of a set on random hits, then asking for its victim.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LruQueueBenchmark {
+
+    private static final int NUM_HITS = 1 << 10;
+
+    @Param({"2", "8", "16", "64"})
+    public int associativity;
+
+    private LruQueue queue;
+    private int[] hits;
+    private int next;
+
+    @Setup
+    public void fillQueue() {
+        queue = new LruQueue(associativity);
+        hits = new SplittableRandom(0).ints(NUM_HITS, 0, associativity).toArray();
+    }
+
+    @Benchmark
+    public int update() {
+        queue.update(hits[next++ & (NUM_HITS - 1)]);
+        return queue.blockToEvacuate();
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import bus.ArbitrationPolicy;
+import bus.Interconnect;
+import cache.Protocol;
+import cache.prefetch.PrefetchPolicy;
+import cache.replacement.ReplacementPolicy;
+import common.Constants;
+import instruction.InstructionArray;
+import instruction.InstructionCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import simulator.Simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole run as Main does it with the default configuration, 4 cores on synthetic traces held in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulationBenchmark {
+
+    private static final int TRACE_LENGTH = 200_000;
+    private static final int CACHE_SIZE = 4096;
+    private static final int ASSOCIATIVITY = 2;
+    private static final int BLOCK_SIZE = 32;
+
+    @Param({"MESI", "Dragon"})
+    public Protocol protocol;
+
+    @Param({"event", "cycle"})
+    public String engine;
+
+    private List<InstructionArray> traces;
+
+    @Setup
+    public void generateTraces() {
+        traces = new ArrayList<>(Constants.NUM_CPUS);
+        for (int i = 0; i < Constants.NUM_CPUS; i++) {
+            traces.add(InstructionArray.readAll(new SyntheticTrace(i, TRACE_LENGTH)));
+        }
+    }
+
+    @Benchmark
+    public long run() {
+        List<InstructionCursor> cursors = new ArrayList<>(traces.size());
+        traces.forEach(t -> cursors.add(t.cursor()));
+        Interconnect interconnect = new Interconnect(Constants.NUM_BUSES, 0, false, ArbitrationPolicy.FIFO, 0, null,
+                null);
+        Simulation simulation = new Simulation(protocol, CACHE_SIZE, ASSOCIATIVITY, BLOCK_SIZE, cursors, interconnect,
+                0, 0, 0, PrefetchPolicy.NONE, Constants.PREFETCH_DEGREE, ReplacementPolicy.LRU, 0, false);
+        simulation.run(engine.equals("cycle"));
+        return simulation.getOverallExecutionCycles();
+    }
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import instruction.InstructionCursor;
+import instruction.InstructionType;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible random trace in the shape of the benchmark traces: two thirds loads and stores, one third computation.
+ * A quarter of the accesses go to a region shared by all the cores, the others to a region of the core.
+ */
+final class SyntheticTrace implements InstructionCursor {
+
+    private static final int REGION_SIZE = 1 << 16;
+    private static final int SHARED_BASE = 0x10000000;
+    private static final int PRIVATE_BASE = 0x20000000;
+    private static final int MAX_COMPUTE_CYCLES = 16;
+
+    private final SplittableRandom random;
+    private final int privateBase;
+    private int remaining;
+    private InstructionType type;
+    private int secondField;
+
+    SyntheticTrace(int core, int length) {
+        this.random = new SplittableRandom(core);
+        this.privateBase = PRIVATE_BASE + core * REGION_SIZE;
+        this.remaining = length;
+    }
+
+    /**
+     * Writes the trace of the core to a file in the text format of the traces.
+     */
+    static void write(Path path, int core, int length) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            SyntheticTrace trace = new SyntheticTrace(core, length);
+            while (trace.hasNext()) {
+                trace.next();
+                writer.println(trace.getType().ordinal() + " 0x" + Integer.toHexString(trace.getSecondField()));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    @Override
+    public void next() {
+        remaining--;
+        int kind = random.nextInt(3);
+        if (kind == 2) {
+            type = InstructionType.OTHER;
+            secondField = 1 + random.nextInt(MAX_COMPUTE_CYCLES);
+            return;
+        }
+        type = kind == 0 ? InstructionType.READ : InstructionType.WRITE;
+        int base = random.nextInt(4) == 0 ? SHARED_BASE : privateBase;
+        secondField = base + (random.nextInt(REGION_SIZE) & ~3);
+    }
+
+    @Override
+    public InstructionType getType() {
+        return type;
+    }
+
+    @Override
+    public int getSecondField() {
+        return secondField;
+    }
+}
@@ -1,27 +1,89 @@
+import bus.ArbitrationPolicy;
 import bus.Bus;
-import bus.BusController;
+import bus.DirectoryMessage;
+import bus.HomeNode;
+import bus.Interconnect;
 import cache.Cache;
 import cache.Protocol;
-import cache.dragon.DragonCache;
-import cache.mesi.MesiCache;
+import cache.prefetch.PrefetchPolicy;
+import cache.replacement.ReplacementPolicy;
 import common.Constants;
 import cpu.Cpu;
-import instruction.Instruction;
+import instruction.BinaryTraceWriter;
+import instruction.InstructionArray;
+import instruction.InstructionCursor;
 import instruction.InstructionParser;
+import memory.Dram;
+import memory.LastLevelCache;
+import simulator.MissRateAnalysis;
+import simulator.MissRateResult;
+import simulator.ParameterSweep;
+import simulator.ResultRow;
+import simulator.Simulation;
+import simulator.SweepResult;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 public final class Main {
 
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("convert")) {
+            convert(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("sweep")) {
+            sweep(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("analyze")) {
+            analyze(args);
+            return;
+        }
         if (args.length < 5) {
             System.err.println("Too few arguments, Usage : Protocol Input cache_size " +
-                    "associativity block_size");
+                    "associativity block_size [--cores=n] [--engine=event|cycle] [--trace-storage=mapped|array] " +
+                    "[--buses=k] [--bus=atomic|split] [--bus-transactions=n] [--coherence=snoop|directory] [--homes=n] " +
+                    "[--arbitration=policy] [--arbitration-seed=n] [--mshrs=n] [--store-buffer=n] [--writeback-buffer=n] [--llc-size=n] " +
+                    "[--llc-associativity=n] [--llc-block-size=n] [--llc-latency=n] [--llc-inclusion=inclusion] " +
+                    "[--memory=flat|dram] [--dram-channels=n] [--dram-banks=n] [--dram-row-size=n] [--dram-page=open|closed] " +
+                    "[--dram-row-hit=n] [--dram-row-miss=n] [--dram-row-conflict=n] [--prefetcher=prefetcher] " +
+                    "[--prefetch-degree=n] [--replacement=replacement] [--replacement-seed=n] [--set-indexing=modulo|xor]\n" +
+                    "       convert input output [--encoding=fixed|delta]\n" +
+                    "       sweep input [--protocols=list] [--cache-sizes=list] [--associativities=list] " +
+                    "[--block-sizes=list] [--cores=n] [--threads=n] [--engine=event|cycle] [--buses=k] [--bus=atomic|split] " +
+                    "[--bus-transactions=n] [--coherence=snoop|directory] [--homes=n] [--arbitration=policy] " +
+                    "[--arbitration-seed=n] [--mshrs=n] " +
+                    "[--store-buffer=n] [--writeback-buffer=n] [--llc-sizes=list] [--llc-associativity=n] " +
+                    "[--llc-block-size=n] [--llc-latency=n] [--llc-inclusion=inclusion] [--memory=flat|dram] [--dram-channels=n] " +
+                    "[--dram-banks=n] [--dram-row-size=n] [--dram-page=open|closed] [--dram-row-hit=n] [--dram-row-miss=n] " +
+                    "[--dram-row-conflict=n] [--prefetcher=prefetcher] [--prefetch-degree=n] [--replacement=replacement] " +
+                    "[--replacement-seed=n] [--set-indexing=modulo|xor] [--format=csv|json] [--output=file]\n" +
+                    "       analyze input [--cache-sizes=list] [--associativities=list] [--block-sizes=list] " +
+                    "[--cores=n] [--set-indexing=modulo|xor] [--format=csv|json] [--output=file]\n" +
+                    "       policy is one of fifo, round-robin, fixed-priority, random\n" +
+                    "       a directory replaces the buses with n home nodes, one per core by default\n" +
+                    "       caches are blocking with --mshrs=0 (default), non-blocking with n MSHRs otherwise\n" +
+                    "       cores have no store buffer with --store-buffer=0 (default), one of n stores otherwise\n" +
+                    "       caches have no write back buffer with --writeback-buffer=0 (default), one of n blocks otherwise\n" +
+                    "       there is no shared last level cache with an llc size of 0 (default), inclusion is one of " +
+                    "inclusive (default), non-inclusive\n" +
+                    "       memory answers in a fixed time with --memory=flat (default), the dram options apply to --memory=dram\n" +
+                    "       prefetcher is one of none (default), next-line, stride, stream\n" +
+                    "       replacement is one of lru (default), plru, srrip, brrip, random, lfu\n" +
+                    "       sets are indexed by the low bits of the block with --set-indexing=modulo (default), hashed with " +
+                    "its tag with xor\n" +
+                    "       lists are either comma separated values or from:to, doubling from from up to to");
             System.exit(1);
         }
 
@@ -30,82 +92,480 @@ public final class Main {
         int cacheSize = Integer.parseInt(args[2]);
         int associativity = Integer.parseInt(args[3]);
         int blockSize = Integer.parseInt(args[4]);
-        Protocol protocol = protocolString.toLowerCase().equals("mesi") ? Protocol.MESI : Protocol.Dragon;
+        Protocol protocol = parseProtocol(protocolString);
+        boolean cycleByCycle = getOption(args, "engine", "event").equals("cycle");
+        boolean preloadTraces = getOption(args, "trace-storage", "mapped").equals("array");
+        int numCpus = Integer.parseInt(getOption(args, "cores", String.valueOf(Constants.NUM_CPUS)));
+        int mshrs = Integer.parseInt(getOption(args, "mshrs", "0"));
+        int storeBufferDepth = Integer.parseInt(getOption(args, "store-buffer", "0"));
+        int writeBackBufferDepth = Integer.parseInt(getOption(args, "writeback-buffer", "0"));
+        int llcSize = Integer.parseInt(getOption(args, "llc-size", "0"));
+        PrefetchPolicy prefetchPolicy = parsePrefetcher(args);
+        int prefetchDegree = parsePrefetchDegree(args);
+        ReplacementPolicy replacementPolicy = parseReplacement(args, List.of(associativity));
+        long replacementSeed = Long.parseLong(getOption(args, "replacement-seed", "0"));
+        boolean hashedSetIndexing = parseSetIndexing(args);
+        Interconnect interconnect = parseInterconnects(args, numCpus, List.of(llcSize)).apply(llcSize);
 
-        List<Cpu> processors = new ArrayList<Cpu>();
-        List<Cache> caches = new ArrayList<Cache>();
-        BusController controller = new BusController();
-        Bus bus = new Bus();
-        bus.attachTo(controller);
-        controller.attachTo(bus);
+        File[] files = listTraces(traceFile);
+        List<InstructionCursor> traces = new ArrayList<>(numCpus);
+        for (int i = 0; i < numCpus; i++) {
+            InstructionCursor trace = InstructionParser.openTrace(files[i % files.length].getAbsolutePath());
+            traces.add(preloadTraces ? InstructionArray.readAll(trace).cursor() : trace);
+        }
 
+        Simulation simulation = new Simulation(protocol, cacheSize, associativity, blockSize, traces, interconnect,
+                mshrs, storeBufferDepth, writeBackBufferDepth, prefetchPolicy, prefetchDegree, replacementPolicy,
+                replacementSeed, hashedSetIndexing);
+        simulation.run(cycleByCycle);
+        printResults(simulation);
+    }
 
-        File dir = new File(traceFile);
-        File[] files = dir.listFiles();
+    private static void convert(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Too few arguments, Usage : convert input output [--encoding=fixed|delta]");
+            System.exit(1);
+        }
 
+        File input = new File(args[1]);
+        File output = new File(args[2]);
+        boolean delta = getOption(args, "encoding", "fixed").equals("delta");
+        try {
+            if (input.isDirectory()) {
+                output.mkdirs();
+                for (File file : input.listFiles(File::isFile)) {
+                    BinaryTraceWriter.convert(file.getPath(), new File(output, file.getName()).getPath(), delta);
+                }
+            } else {
+                BinaryTraceWriter.convert(input.getPath(), output.getPath(), delta);
+            }
+        } catch (IOException e) {
+            System.err.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
 
-        for (int i = 0; i < 4; i++) {
-            Cache cache = protocol == Protocol.MESI ?
-                    new MesiCache(i, cacheSize, blockSize, associativity) :
-                    new DragonCache(i, cacheSize, blockSize, associativity);
-            Cpu p = new Cpu(cache);
-            Queue<Instruction> instructions = InstructionParser.parseInstructions(files[i].getAbsolutePath());
-            p.setInstructions(instructions);
-            processors.add(p);
-            caches.add(cache);
-            cache.linkCpu(p);
-            controller.attach(cache);
+    private static void sweep(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Too few arguments, Usage : sweep input [--protocols=list] [--cache-sizes=list] " +
+                    "[--associativities=list] [--block-sizes=list] [--cores=n] [--threads=n] " +
+                    "[--engine=event|cycle] [--buses=k] [--bus=atomic|split] [--bus-transactions=n] " +
+                    "[--coherence=snoop|directory] [--homes=n] [--arbitration=policy] [--arbitration-seed=n] [--mshrs=n] [--store-buffer=n] [--writeback-buffer=n] [--llc-sizes=list] " +
+                    "[--llc-associativity=n] [--llc-block-size=n] [--llc-latency=n] [--llc-inclusion=inclusion] " +
+                    "[--memory=flat|dram] [--dram-channels=n] [--dram-banks=n] [--dram-row-size=n] [--dram-page=open|closed] " +
+                    "[--dram-row-hit=n] [--dram-row-miss=n] [--dram-row-conflict=n] [--prefetcher=prefetcher] " +
+                    "[--prefetch-degree=n] [--replacement=replacement] [--replacement-seed=n] " +
+                    "[--set-indexing=modulo|xor] [--format=csv|json] [--output=file]");
+            System.exit(1);
+        }
 
+        List<Protocol> protocols = new ArrayList<>();
+        for (String protocol : getOption(args, "protocols", "mesi,dragon").split(",")) {
+            protocols.add(parseProtocol(protocol));
         }
-        runUntilEnd(processors, caches, bus);
-        printResults(processors, caches, bus, controller, protocol);
+        List<Integer> cacheSizes = parseValues(getOption(args, "cache-sizes", "4096"));
+        List<Integer> associativities = parseValues(getOption(args, "associativities", "2"));
+        List<Integer> blockSizes = parseValues(getOption(args, "block-sizes", "32"));
+        int numCpus = Integer.parseInt(getOption(args, "cores", String.valueOf(Constants.NUM_CPUS)));
+        int threads = Integer.parseInt(getOption(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        boolean cycleByCycle = getOption(args, "engine", "event").equals("cycle");
+        int mshrs = Integer.parseInt(getOption(args, "mshrs", "0"));
+        int storeBufferDepth = Integer.parseInt(getOption(args, "store-buffer", "0"));
+        int writeBackBufferDepth = Integer.parseInt(getOption(args, "writeback-buffer", "0"));
+        List<Integer> llcSizes = parseValues(getOption(args, "llc-sizes", "0"));
+        IntFunction<Interconnect> interconnects = parseInterconnects(args, numCpus, llcSizes);
+        PrefetchPolicy prefetchPolicy = parsePrefetcher(args);
+        int prefetchDegree = parsePrefetchDegree(args);
+        ReplacementPolicy replacementPolicy = parseReplacement(args, associativities);
+        long replacementSeed = Long.parseLong(getOption(args, "replacement-seed", "0"));
+        boolean hashedSetIndexing = parseSetIndexing(args);
+        boolean json = getOption(args, "format", "csv").equals("json");
+        String output = getOption(args, "output", null);
+
+        // every trace is parsed once and shared by all the simulations, and by the cores running it
+        File[] files = listTraces(args[1]);
+        Map<File, InstructionArray> parsed = new HashMap<>();
+        List<InstructionArray> traces = new ArrayList<>(numCpus);
+        for (int i = 0; i < numCpus; i++) {
+            traces.add(parsed.computeIfAbsent(files[i % files.length],
+                    f -> InstructionArray.readAll(InstructionParser.openTrace(f.getAbsolutePath()))));
+        }
+
+        List<SweepResult> results = new ParameterSweep(traces, cycleByCycle, interconnects, mshrs, storeBufferDepth,
+                writeBackBufferDepth, prefetchPolicy, prefetchDegree, replacementPolicy, replacementSeed, hashedSetIndexing)
+                .run(protocols, cacheSizes, associativities, blockSizes, llcSizes, threads);
+
+        writeResults(results, SweepResult.CSV_HEADER, json, output);
     }
 
-    private static void runUntilEnd(List<Cpu> processors, List<Cache> caches, Bus bus) {
+    private static void analyze(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Too few arguments, Usage : analyze input [--cache-sizes=list] " +
+                    "[--associativities=list] [--block-sizes=list] [--cores=n] [--set-indexing=modulo|xor] " +
+                    "[--format=csv|json] [--output=file]");
+            System.exit(1);
+        }
 
-        while (!allFinished(processors)) {
-            bus.runForOneCycle();
-            caches.forEach(c -> c.runForOneCycle());
-            Collections.shuffle(processors);
-            processors.forEach(p -> p.runForOneCycle());
+        List<Integer> cacheSizes = parseValues(getOption(args, "cache-sizes", "4096"));
+        List<Integer> associativities = parseValues(getOption(args, "associativities", "2"));
+        List<Integer> blockSizes = parseValues(getOption(args, "block-sizes", "32"));
+        int numCpus = Integer.parseInt(getOption(args, "cores", String.valueOf(Constants.NUM_CPUS)));
+        boolean hashedSetIndexing = parseSetIndexing(args);
+        boolean json = getOption(args, "format", "csv").equals("json");
+        String output = getOption(args, "output", null);
 
+        File[] files = listTraces(args[1]);
+        List<String> traces = new ArrayList<>(numCpus);
+        for (int i = 0; i < numCpus; i++) {
+            traces.add(files[i % files.length].getAbsolutePath());
         }
+
+        List<MissRateResult> results = new MissRateAnalysis(traces, hashedSetIndexing).run(cacheSizes, associativities, blockSizes);
+        writeResults(results, MissRateResult.CSV_HEADER, json, output);
     }
 
-    private static boolean allFinished(List<Cpu> processors) {
-        return processors.stream().allMatch(p -> p.finishedExecution());
+    private static void writeResults(List<? extends ResultRow> results, String csvHeader, boolean json, String output) {
+        try (PrintStream out = output == null ? new PrintStream(System.out, false) : new PrintStream(output)) {
+            if (json) {
+                out.println("[");
+                for (int i = 0; i < results.size(); i++) {
+                    out.println("  " + results.get(i).toJson() + (i + 1 < results.size() ? "," : ""));
+                }
+                out.println("]");
+            } else {
+                out.println(csvHeader);
+                results.forEach(r -> out.println(r.toCsv()));
+            }
+            out.flush();
+        } catch (FileNotFoundException e) {
+            System.err.println("Could not write " + output);
+            System.exit(1);
+        }
     }
 
-    private static void printResults(List<Cpu> processors, List<Cache> caches, Bus bus, BusController controller, Protocol protocol) {
-        List<Long> executionCycle = new ArrayList<>(Constants.NUM_CPUS);
-        processors.forEach(p -> executionCycle.add(p.getCycleCount()));
-        long maxExecutionCycle = Collections.max(executionCycle);
+    // cores are given the traces of the directory in name order, starting over when there are more cores than traces
+    private static File[] listTraces(String traceDirectory) {
+        File dir = new File(traceDirectory);
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null || files.length == 0) {
+            System.err.println("No trace found in " + traceDirectory);
+            System.exit(1);
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static void printResults(Simulation simulation) {
+        List<Cpu> processors = simulation.getProcessors();
+        List<Cache> caches = simulation.getCaches();
+        Interconnect interconnect = simulation.getInterconnect();
+        List<Bus> buses = interconnect.getBuses();
         System.out.println("Results:");
-        System.out.println("Overall Execution Cycle: " + maxExecutionCycle);
+        System.out.println("Overall Execution Cycle: " + simulation.getOverallExecutionCycles());
         processors.forEach(p -> System.out.println("Execution cycles for core " + processors.indexOf(p) + ": " + p.getCycleCount()));
         processors.forEach(p -> System.out.println("Compute cycles for core " + processors.indexOf(p) + ": " + p.getTotalComputingCycles()));
         processors.forEach(p -> System.out.println("Number of Load instructions for core " + processors.indexOf(p) + ": " + p.getNumLoad()));
         processors.forEach(p -> System.out.println("Number of Store instructions for core " + processors.indexOf(p) + ": " + p.getNumStore()));
         processors.forEach(p -> System.out.println("Number of Idle cycles for core " + processors.indexOf(p) + ": " + p.getTotalIdleCycles()));
+        if (processors.get(0).hasStoreBuffer()) {
+            processors.forEach(p -> System.out.println("Store buffer full stall cycles for core " + processors.indexOf(p) + ": " + p.getStoreBufferStallCycles()));
+            processors.forEach(p -> System.out.println("Loads forwarded from the store buffer for core " + processors.indexOf(p) + ": " + p.getForwardedLoads()));
+        }
         caches.forEach(c -> System.out.println("Cache miss rate for cache " + c.getId() + ": " + c.getMissRate()));
-        System.out.println("Average cache miss rate "+ getAverageMissRate(caches));
+        System.out.println("Average cache miss rate "+ simulation.getAverageMissRate());
+        caches.forEach(c -> System.out.println("Average miss latency for cache " + c.getId() + ": " + c.getAverageMissLatency()));
+        System.out.println("Average miss latency " + simulation.getAverageMissLatency());
+        if (caches.get(0).hasWriteBackBuffer()) {
+            caches.forEach(c -> System.out.println("Write backs buffered for cache " + c.getId() + ": " + c.getNbBufferedWriteBacks()));
+            caches.forEach(c -> System.out.println("Evictions stalled on a full write back buffer for cache " + c.getId() + ": " + c.getNbWriteBackBufferFull()));
+        }
+        if (caches.get(0).hasPrefetcher()) {
+            caches.forEach(c -> System.out.println("Prefetches issued for cache " + c.getId() + ": " + c.getNbPrefetches()));
+            caches.forEach(c -> System.out.println("Prefetches used for cache " + c.getId() + ": " + c.getNbUsefulPrefetches() +
+                    ", late " + c.getNbLatePrefetches()));
+            caches.forEach(c -> System.out.println("Prefetch accuracy for cache " + c.getId() + ": " + c.getPrefetchAccuracy()));
+            caches.forEach(c -> System.out.println("Prefetch coverage for cache " + c.getId() + ": " + c.getPrefetchCoverage()));
+            caches.forEach(c -> System.out.println("Prefetch timeliness for cache " + c.getId() + ": " + c.getPrefetchTimeliness()));
+            System.out.println("Average prefetch accuracy " + simulation.getAveragePrefetchAccuracy());
+            System.out.println("Average prefetch coverage " + simulation.getAveragePrefetchCoverage());
+        }
+        LastLevelCache llc = interconnect.getLastLevelCache();
+        if (llc != null) {
+            System.out.println("Last level cache hit rate " + llc.getHitRate());
+            System.out.println("Last level cache write backs to memory " + llc.getMemoryWriteBacks());
+            if (llc.isInclusive()) {
+                System.out.println("Last level cache back invalidations " + llc.getBackInvalidations());
+                caches.forEach(c -> System.out.println("Blocks dropped on back invalidations for cache " + c.getId() + ": " + c.getNbBackInvalidations()));
+                caches.forEach(c -> System.out.println("Dirty blocks written back on back invalidations for cache " + c.getId() + ": " + c.getNbBackInvalidationWriteBacks()));
+            }
+        }
+        Dram dram = interconnect.getDram();
+        if (dram != null) {
+            System.out.println("DRAM row buffer hit rate " + dram.getRowBufferHitRate());
+            System.out.println("DRAM row hits " + dram.getRowHits());
+            System.out.println("DRAM row misses " + dram.getRowMisses());
+            System.out.println("DRAM row conflicts " + dram.getRowConflicts());
+            System.out.println("DRAM bank wait cycles " + dram.getBankWaitCycles());
+        }
+        caches.forEach(c -> System.out.println("Memory level parallelism for cache " + c.getId() + ": " + c.getMemoryLevelParallelism()));
+        System.out.println("Average memory level parallelism " + simulation.getAverageMemoryLevelParallelism());
         caches.forEach(c -> System.out.println("Number of private accesses for cache " + c.getId() + ": " + c.getPrivateAccess()));
         caches.forEach(c -> System.out.println("Number of shared accesses for cache " + c.getId() + ": " + c.getSharedAccess()));
 
 
-        if (protocol == Protocol.MESI) {
-            System.out.println("Number of invalidations on the bus: " + getTotalNumOfInvalidations(caches));
+        if (simulation.getProtocol() == Protocol.Dragon) {
+            System.out.println("Number of updates on the bus: " + simulation.getTotalNumOfInvalidations());
         } else {
-            System.out.println("Number of updates on the bus: " + getTotalNumOfInvalidations(caches));
+            System.out.println("Number of invalidations on the bus: " + simulation.getTotalNumOfInvalidations());
+        }
+        if (simulation.getProtocol() == Protocol.MOESI) {
+            System.out.println("Number of dirty cache to cache transfers: " + simulation.getTotalNumOfDirtyTransfers());
+        }
+        System.out.println("Data Sent on the bus :" + interconnect.getBusTraffic());
+        caches.forEach(c -> System.out.println("Bus wait cycles for cache " + c.getId() + ": " + interconnect.getBusWaitCycles(c)));
+        caches.forEach(c -> System.out.println("Average bus wait for cache " + c.getId() + ": " + interconnect.getAverageBusWait(c)));
+        if (interconnect.isDirectory()) {
+            List<HomeNode> homes = interconnect.getHomes();
+            for (DirectoryMessage message : DirectoryMessage.values()) {
+                System.out.println("Directory " + message + " messages: " + interconnect.getMessages(message));
+            }
+            homes.forEach(h -> System.out.println("Directory entries of home " + homes.indexOf(h) + ": " +
+                    h.getDirectoryEntries() + ", at peak " + h.getPeakDirectoryEntries()));
+            buses.forEach(b -> System.out.println("Utilization of home " + buses.indexOf(b) + ": " + b.getUtilization()));
+        } else {
+            buses.forEach(b -> System.out.println("Data sent on bus " + buses.indexOf(b) + ": " +
+                    interconnect.getControllers().get(buses.indexOf(b)).getBusTraffic()));
+            buses.forEach(b -> System.out.println("Utilization of bus " + buses.indexOf(b) + ": " + b.getUtilization()));
+        }
+        System.out.println("Snoops avoided by the snoop filter: " + interconnect.getSnoopsAvoided());
+
+    }
+
+    private static Protocol parseProtocol(String protocolString) {
+        switch (protocolString.toLowerCase()) {
+            case "mesi":
+                return Protocol.MESI;
+            case "moesi":
+                return Protocol.MOESI;
+            case "mesif":
+                return Protocol.MESIF;
+            default:
+                return Protocol.Dragon;
+        }
+    }
+
+    private static int parseBuses(String[] args) {
+        int numBuses = Integer.parseInt(getOption(args, "buses", String.valueOf(Constants.NUM_BUSES)));
+        if (numBuses < 1) {
+            System.err.println("There must be at least one bus");
+            System.exit(1);
+        }
+        return numBuses;
+    }
+
+    // creates the buses and memory of a simulation from the size of its shared last level cache, among sizes
+    private static IntFunction<Interconnect> parseInterconnects(String[] args, int numCpus, List<Integer> llcSizes) {
+        boolean directory = parseCoherence(args);
+        int numBuses = directory ? parseHomes(args, numCpus) : parseBuses(args);
+        int busTransactions = parseBusTransactions(args);
+        ArbitrationPolicy arbitration = parseArbitration(args);
+        long arbitrationSeed = Long.parseLong(getOption(args, "arbitration-seed", "0"));
+        IntFunction<LastLevelCache> llcs = parseLlc(args, llcSizes);
+        Supplier<Dram> drams = parseDram(args);
+        return llcSize -> new Interconnect(numBuses, busTransactions, directory, arbitration, arbitrationSeed,
+                llcs.apply(llcSize), drams.get());
+    }
+
+    private static boolean parseSetIndexing(String[] args) {
+        String indexing = getOption(args, "set-indexing", "modulo");
+        if (!indexing.equals("modulo") && !indexing.equals("xor")) {
+            System.err.println("Unknown set indexing " + indexing + ", expected modulo or xor");
+            System.exit(1);
+        }
+        return indexing.equals("xor");
+    }
+
+    private static boolean parseCoherence(String[] args) {
+        String coherence = getOption(args, "coherence", "snoop");
+        if (!coherence.equals("snoop") && !coherence.equals("directory")) {
+            System.err.println("Unknown coherence " + coherence + ", expected snoop or directory");
+            System.exit(1);
         }
-        System.out.println("Data Sent on the bus :" + controller.getBusTraffic());
+        return coherence.equals("directory");
+    }
 
+    // a directory has a home node per core by default
+    private static int parseHomes(String[] args, int numCpus) {
+        int homes = Integer.parseInt(getOption(args, "homes", String.valueOf(numCpus)));
+        if (homes < 1) {
+            System.err.println("A directory needs at least one home node");
+            System.exit(1);
+        }
+        return homes;
     }
-    private static double getAverageMissRate (List<Cache> caches){
-        return  caches.stream().map(c -> c.getMissRate()).reduce((a, b) -> a + b).get() / 4;
+
+    // creates the shared last level cache of a size, none for size 0
+    private static IntFunction<LastLevelCache> parseLlc(String[] args, List<Integer> sizes) {
+        int associativity = Integer.parseInt(getOption(args, "llc-associativity",
+                String.valueOf(Constants.LLC_ASSOCIATIVITY)));
+        int blockSize = Integer.parseInt(getOption(args, "llc-block-size", String.valueOf(Constants.LLC_BLOCK_SIZE)));
+        int latency = Integer.parseInt(getOption(args, "llc-latency", String.valueOf(Constants.LLC_LATENCY)));
+        String inclusion = getOption(args, "llc-inclusion", "inclusive");
+        if (!inclusion.equals("inclusive") && !inclusion.equals("non-inclusive")) {
+            System.err.println("Unknown inclusion " + inclusion + ", expected inclusive or non-inclusive");
+            System.exit(1);
+        }
+        for (int size : sizes) {
+            if (size != 0 && size < associativity * blockSize) {
+                System.err.println("The last level cache must hold at least one set of " + associativity + " blocks of "
+                        + blockSize + " bytes");
+                System.exit(1);
+            }
+        }
+        return size -> size == 0 ? null
+                : new LastLevelCache(size, associativity, blockSize, latency, inclusion.equals("inclusive"));
+    }
+
+    // creates the DRAM memory is modeled as, none for flat memory
+    private static Supplier<Dram> parseDram(String[] args) {
+        String memory = getOption(args, "memory", "flat");
+        if (memory.equals("flat")) {
+            return () -> null;
+        }
+        if (!memory.equals("dram")) {
+            System.err.println("Unknown memory " + memory + ", expected flat or dram");
+            System.exit(1);
+        }
+        int channels = Integer.parseInt(getOption(args, "dram-channels", String.valueOf(Constants.DRAM_CHANNELS)));
+        int banks = Integer.parseInt(getOption(args, "dram-banks", String.valueOf(Constants.DRAM_BANKS)));
+        int rowSize = Integer.parseInt(getOption(args, "dram-row-size", String.valueOf(Constants.DRAM_ROW_SIZE)));
+        boolean openPage = !getOption(args, "dram-page", "open").equals("closed");
+        int rowHit = Integer.parseInt(getOption(args, "dram-row-hit", String.valueOf(Constants.DRAM_ROW_HIT_LATENCY)));
+        int rowMiss = Integer.parseInt(getOption(args, "dram-row-miss", String.valueOf(Constants.DRAM_ROW_MISS_LATENCY)));
+        int rowConflict = Integer.parseInt(getOption(args, "dram-row-conflict",
+                String.valueOf(Constants.DRAM_ROW_CONFLICT_LATENCY)));
+        if (channels < 1 || banks < 1 || rowSize < 1) {
+            System.err.println("DRAM needs at least one channel, one bank and rows of at least one byte");
+            System.exit(1);
+        }
+        return () -> new Dram(channels, banks, rowSize, openPage, rowHit, rowMiss, rowConflict);
+    }
+
+    private static ArbitrationPolicy parseArbitration(String[] args) {
+        switch (getOption(args, "arbitration", "fifo").toLowerCase()) {
+            case "round-robin":
+                return ArbitrationPolicy.ROUND_ROBIN;
+            case "fixed-priority":
+                return ArbitrationPolicy.FIXED_PRIORITY;
+            case "random":
+                return ArbitrationPolicy.RANDOM;
+            default:
+                return ArbitrationPolicy.FIFO;
+        }
     }
-    private static int getTotalNumOfInvalidations(List<Cache> caches) {
-        return caches.stream().map(c -> c.getNbInvalidations()).reduce(0, (a, b) -> a + b);
+
+    private static PrefetchPolicy parsePrefetcher(String[] args) {
+        switch (getOption(args, "prefetcher", "none").toLowerCase()) {
+            case "next-line":
+                return PrefetchPolicy.NEXT_LINE;
+            case "stride":
+                return PrefetchPolicy.STRIDE;
+            case "stream":
+                return PrefetchPolicy.STREAM;
+            default:
+                return PrefetchPolicy.NONE;
+        }
+    }
+
+    private static ReplacementPolicy parseReplacement(String[] args, List<Integer> associativities) {
+        ReplacementPolicy policy;
+        switch (getOption(args, "replacement", "lru").toLowerCase()) {
+            case "plru":
+                policy = ReplacementPolicy.PLRU;
+                break;
+            case "srrip":
+                policy = ReplacementPolicy.SRRIP;
+                break;
+            case "brrip":
+                policy = ReplacementPolicy.BRRIP;
+                break;
+            case "random":
+                policy = ReplacementPolicy.RANDOM;
+                break;
+            case "lfu":
+                policy = ReplacementPolicy.LFU;
+                break;
+            default:
+                policy = ReplacementPolicy.LRU;
+                break;
+        }
+        for (int associativity : associativities) {
+            if (!policy.supports(associativity)) {
+                System.err.println("The " + policy + " replacement does not support an associativity of " + associativity +
+                        ", it needs a power of two up to 64");
+                System.exit(1);
+            }
+        }
+        return policy;
+    }
+
+    private static int parsePrefetchDegree(String[] args) {
+        int degree = Integer.parseInt(getOption(args, "prefetch-degree", String.valueOf(Constants.PREFETCH_DEGREE)));
+        if (degree < 1) {
+            System.err.println("The prefetch degree must be at least 1");
+            System.exit(1);
+        }
+        return degree;
+    }
+
+    // 0 stands for the atomic bus
+    private static int parseBusTransactions(String[] args) {
+        if (!getOption(args, "bus", "atomic").equals("split")) {
+            return 0;
+        }
+        int busTransactions = Integer.parseInt(getOption(args, "bus-transactions",
+                String.valueOf(Constants.SPLIT_BUS_TRANSACTIONS)));
+        if (busTransactions < 1) {
+            System.err.println("A split transaction bus needs at least one transaction in flight");
+            System.exit(1);
+        }
+        return busTransactions;
+    }
+
+    /**
+     * A comma separated list of values, or a range first:last of the powers of two times first up to last.
+     */
+    static List<Integer> parseValues(String values) {
+        List<Integer> parsed = new ArrayList<>();
+        if (values.contains(":")) {
+            String[] bounds = values.split(":");
+            int first = Integer.parseInt(bounds[0]);
+            int last = Integer.parseInt(bounds[1]);
+            if (first <= 0) {
+                System.err.println("A range must start from a positive value, list the values instead: " + values);
+                System.exit(1);
+            }
+            // a long so that doubling past the largest int ends the range
+            for (long value = first; value <= last; value *= 2) {
+                parsed.add((int) value);
+            }
+        } else {
+            for (String value : values.split(",")) {
+                parsed.add(Integer.parseInt(value));
+            }
+        }
+        return parsed;
+    }
+
+    private static String getOption(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
     }
 
 }
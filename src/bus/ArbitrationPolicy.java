@@ -0,0 +1,21 @@
+package bus;
+
+public enum ArbitrationPolicy {
+    FIFO, ROUND_ROBIN, FIXED_PRIORITY, RANDOM;
+
+    /**
+     * The seed is only used by the random policy, runs with the same seed are identical.
+     */
+    public BusArbiter createArbiter(long seed) {
+        switch (this) {
+            case ROUND_ROBIN:
+                return new RoundRobinArbiter();
+            case FIXED_PRIORITY:
+                return new FixedPriorityArbiter();
+            case RANDOM:
+                return new RandomArbiter(seed);
+            default:
+                return new FifoArbiter();
+        }
+    }
+}
@@ -2,23 +2,35 @@ package bus;
 
 import common.Clocked;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 public final class Bus implements Clocked {
 
-    private BusController busController;
+    private CoherenceController busController;
     private Request currentRequest;
+    private long cycle;
+    private long busyCycles;
+    private final List<Request> waitingRequests;
 
     public Bus() {
         this.currentRequest = null;
+        this.waitingRequests = new ArrayList<>();
     }
 
-    public void attachTo(BusController controller) {
+    public void attachTo(CoherenceController controller) {
         this.busController = controller;
     }
 
     @Override
     public void runForOneCycle() {
+        // requests released from the bus during this cycle start waiting on the next one
+        int waiting = waitingRequests.size();
+        cycle++;
+
         if (currentRequest != null) {
+            busyCycles++;
             currentRequest.decrementCyclesToExecute();
 
             if (currentRequest.done()) {
@@ -26,12 +38,64 @@ public final class Bus implements Clocked {
                 busController.alert();
             }
         }
+
+        int kept = 0;
+        for (int i = 0; i < waitingRequests.size(); i++) {
+            Request request = waitingRequests.get(i);
+            if (i < waiting) {
+                request.decrementCyclesToExecute();
+                if (request.done()) {
+                    busController.dataReady(request);
+                    continue;
+                }
+            }
+            waitingRequests.set(kept++, request);
+        }
+        waitingRequests.subList(kept, waitingRequests.size()).clear();
+    }
+
+    @Override
+    public int cyclesUntilNextEvent() {
+        int next = currentRequest == null ? NO_EVENT : Math.max(currentRequest.getCyclesToExecute(), 1);
+        for (Request request : waitingRequests) {
+            next = Math.min(next, Math.max(request.getCyclesToExecute(), 1));
+        }
+        return next;
+    }
+
+    @Override
+    public void skipCycles(int cycles) {
+        cycle += cycles;
+        if (currentRequest != null) {
+            busyCycles += cycles;
+            currentRequest.setCyclesToExecute(currentRequest.getCyclesToExecute() - cycles);
+        }
+        for (Request request : waitingRequests) {
+            request.setCyclesToExecute(request.getCyclesToExecute() - cycles);
+        }
+    }
+
+    public long getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Fraction of the cycles during which a request held the bus.
+     */
+    public double getUtilization() {
+        return cycle == 0 ? 0 : ((double) busyCycles) / cycle;
     }
 
     public void setCurrentRequest(Request request) {
         this.currentRequest = request;
     }
 
+    /**
+     * Releases the bus while the data of the request is fetched, the controller is told when it is ready to be sent.
+     */
+    public void addWaitingRequest(Request request) {
+        this.waitingRequests.add(request);
+    }
 
-}
 
+}
@@ -0,0 +1,25 @@
+package bus;
+
+import cache.Cache;
+
+import java.util.function.Predicate;
+
+/**
+ * Decides which of the caches queued for the bus is granted it next.
+ */
+public interface BusArbiter {
+
+    void add(Cache cache);
+
+    boolean isEmpty();
+
+    /**
+     * Removes one of the entries of the cache, whose access no longer waits for the bus.
+     */
+    void remove(Cache cache);
+
+    /**
+     * Removes and returns the cache the bus is granted to among the queued ones allowed to start, null if none is.
+     */
+    Cache next(Predicate<Cache> canStart);
+}
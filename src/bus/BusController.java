@@ -2,87 +2,117 @@ package bus;
 
 
 import cache.Cache;
+import common.Constants;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
-public final class BusController {
+/**
+ * Grants the bus to the queued caches and broadcasts their requests.
+ * On the default atomic bus a request holds the bus until its data has arrived, memory latency included.
+ * On a split transaction bus the address and data phases are separate bus tenures: the bus is released while
+ * the data is fetched, and up to maxTransactions requests can be in flight at once. Requests for a block with
+ * a transaction in flight wait for it to complete, and data responses are granted the bus before new requests.
+ */
+public final class BusController extends CoherenceController {
+
+    private final int maxTransactions;
+    private final List<Request> transactions;
+    private final Queue<Request> responseQueue;
+
+    /**
+     * @param maxTransactions number of requests a split transaction bus can have in flight, 0 for an atomic bus
+     */
+    public BusController(int maxTransactions, BusArbiter arbiter) {
+        super(arbiter);
+        this.maxTransactions = maxTransactions;
+        this.transactions = new ArrayList<>();
+        this.responseQueue = new LinkedList<>();
 
-    private Bus bus;
-    private Request currentRequest;
-    private int busTraffic;
-    private final List<Cache> caches;
-    private final Queue<Cache> cacheQueue;
 
-    public BusController() {
-        this.caches = new LinkedList<>();
-        this.currentRequest = null;
-        this.cacheQueue = new LinkedList<>();
-        busTraffic = 0;
-
-
-    }
-
-    public void attachTo(Bus bus) {
-        this.bus = bus;
-    }
-
-    public void attach(Cache cache) {
-        this.caches.add(cache);
-        cache.linkBusController(this);
     }
 
+    @Override
     public void alert() {
         assert currentRequest != null;
 
-        Cache sender = null;
-        int extra_cycles = 0;
-        for (Cache c : caches) {
-            int extra = c.notifyRequestAndGetExtraCycles(currentRequest);
-            if (extra > 0) {
-                sender = c;
-                extra_cycles = extra;
-            }
-        }
+        int requesterId = currentRequest.getSenderId();
+        int extra_cycles = notifyCaches(currentRequest);
 
-        if (extra_cycles > 0 && currentRequest.senderNeedsData()) {
-            busTraffic += sender.getDataSent();
-            currentRequest.setCyclesToExecute(extra_cycles);
+        // the sender may have completed its access on the message itself, the transaction is then over
+        if (extra_cycles > 0 && currentRequest.senderNeedsData()
+                && caches.get(requesterId).isWaitingFor(currentRequest)) {
+            busTraffic += supplier.getDataSent();
             currentRequest.setDataRequest(true);
+            // on a split transaction bus only the transfer of the block keeps the bus busy
+            int transferCycles = (caches.get(requesterId).getBlockSize() / Constants.BYTES_IN_WORD)
+                    * Constants.BUS_WORD_LATENCY;
+            if (isSplitTransaction() && extra_cycles > transferCycles) {
+                currentRequest.setCyclesToExecute(extra_cycles - transferCycles);
+                bus.addWaitingRequest(currentRequest);
+                setNewRequest();
+            } else {
+                currentRequest.setCyclesToExecute(extra_cycles);
+            }
         } else {
+            transactions.remove(currentRequest);
             setNewRequest();
         }
     }
 
-    public boolean checkExistenceInOtherCaches(int senderId, int address) {
-        return caches.stream().anyMatch(c -> c.getId() != senderId && c.cacheHit(address));
+    /**
+     * Called by the bus when the data of a request released by a split transaction bus can be sent.
+     */
+    @Override
+    public void dataReady(Request request) {
+        request.setCyclesToExecute((caches.get(request.getSenderId()).getBlockSize() / Constants.BYTES_IN_WORD)
+                * Constants.BUS_WORD_LATENCY);
+        if (currentRequest == null) {
+            grant(request);
+        } else {
+            responseQueue.add(request);
+        }
+    }
+
+    public boolean isSplitTransaction() {
+        return maxTransactions > 0;
     }
 
-    public void queueUp(Cache cache) {
+    @Override
+    protected void setNewRequest() {
 
-        if (cacheQueue.isEmpty() && currentRequest == null) {
-            this.currentRequest = cache.getRequest();
-            this.bus.setCurrentRequest(currentRequest);
-        } else {
-            this.cacheQueue.add(cache);
+        if (!responseQueue.isEmpty()) {
+            grant(responseQueue.poll());
+            return;
         }
+        super.setNewRequest();
     }
 
-    public int getBusTraffic() {
-        return busTraffic;
+    @Override
+    protected void grant(Request request) {
+        if (!request.isDataRequest()) {
+            transactions.add(request);
+        }
+        super.grant(request);
     }
 
-    private void setNewRequest() {
-
-        if (!cacheQueue.isEmpty()) {
-            Cache cache = cacheQueue.poll();
-            this.currentRequest = cache.getRequest();
-            this.bus.setCurrentRequest(currentRequest);
-        } else {
-            currentRequest = null;
-            bus.setCurrentRequest(null);
+    @Override
+    protected boolean canStart(Cache cache) {
+        if (!isSplitTransaction()) {
+            return true;
+        }
+        if (transactions.size() >= maxTransactions) {
+            return false;
+        }
+        long block = cache.getBlockId(cache.getRequestAddress(this));
+        for (Request transaction : transactions) {
+            if (getBlockId(transaction) == block) {
+                return false;
+            }
         }
+        return true;
     }
 
 
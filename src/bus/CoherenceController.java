@@ -0,0 +1,228 @@
+package bus;
+
+import cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the caches coherent for the blocks it owns: it grants its bus to the queued caches and has their requests
+ * reach the caches holding a valid copy of the block, which it finds in its snoop filter.
+ * The caches queuing up during a cycle compete for a free bus at its end, the arbiter picks the one granted.
+ * Prefetches are only granted the bus when no miss that can start is queued.
+ */
+public abstract class CoherenceController {
+
+    protected Bus bus;
+    protected Request currentRequest;
+    protected int busTraffic;
+    protected Cache supplier;
+    protected final List<Cache> caches;
+    private long snoopsAvoided;
+    private long[] snoopTargets;
+    private long[] invalidHolders;
+    private long[] validHolders;
+    private final BusArbiter arbiter;
+    private final SnoopFilter snoopFilter;
+    private long[] busWaitCycles;
+    private int[] busGrants;
+
+    protected CoherenceController(BusArbiter arbiter) {
+        this.arbiter = arbiter;
+        this.busWaitCycles = new long[0];
+        this.busGrants = new int[0];
+        this.caches = new ArrayList<>();
+        this.currentRequest = null;
+        this.snoopFilter = new SnoopFilter();
+        this.snoopTargets = new long[snoopFilter.getWords()];
+        this.invalidHolders = new long[snoopFilter.getWords()];
+        this.validHolders = new long[snoopFilter.getWords()];
+        busTraffic = 0;
+        snoopsAvoided = 0;
+    }
+
+    public void attachTo(Bus bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * Caches must be attached in the order of their ids, starting from 0.
+     */
+    public void attach(Cache cache) {
+        assert cache.getId() == caches.size();
+        this.caches.add(cache);
+        snoopFilter.ensureCaches(caches.size());
+        snoopTargets = new long[snoopFilter.getWords()];
+        invalidHolders = new long[snoopFilter.getWords()];
+        validHolders = new long[snoopFilter.getWords()];
+        busWaitCycles = Arrays.copyOf(busWaitCycles, caches.size());
+        busGrants = Arrays.copyOf(busGrants, caches.size());
+    }
+
+    /**
+     * Called by the bus when the request holding it is done.
+     */
+    public abstract void alert();
+
+    /**
+     * Called by the bus when a request it released is done waiting.
+     */
+    public abstract void dataReady(Request request);
+
+    public boolean checkExistenceInOtherCaches(int senderId, int address) {
+        return snoopFilter.isValidElsewhere(caches.get(senderId).getBlockId(address), senderId);
+    }
+
+    /**
+     * Whether another cache holds the block in a state allowing it to send it on the bus.
+     */
+    public boolean checkSupplierInOtherCaches(int senderId, int address) {
+        snoopFilter.copyValidHolders(caches.get(senderId).getBlockId(address), validHolders);
+        for (int word = 0; word < validHolders.length; word++) {
+            for (long holders = validHolders[word]; holders != 0; holders &= holders - 1) {
+                int holderId = word * Long.SIZE + Long.numberOfTrailingZeros(holders);
+                if (holderId != senderId && caches.get(holderId).canSupply(address)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void updatePresence(Cache cache, long blockId, boolean holdsTag, boolean valid) {
+        snoopFilter.update(blockId, cache.getId(), holdsTag, valid);
+    }
+
+    public void queueUp(Cache cache) {
+        arbiter.add(cache);
+    }
+
+    /**
+     * Withdraws one of the accesses the cache queued up, which no longer waits for the bus.
+     */
+    public void dequeue(Cache cache) {
+        arbiter.remove(cache);
+    }
+
+    /**
+     * Grants a free bus to one of the caches that queued up during the cycle, called once every cycle has run.
+     */
+    public void arbitrate() {
+        if (currentRequest == null && !arbiter.isEmpty()) {
+            setNewRequest();
+        }
+    }
+
+    public long getCycle() {
+        return bus.getCycle();
+    }
+
+    public int getBusTraffic() {
+        return busTraffic;
+    }
+
+    public long getSnoopsAvoided() {
+        return snoopsAvoided;
+    }
+
+    /**
+     * Cycles the cache spent queued for the bus, summed over all its requests.
+     */
+    public long getBusWaitCycles(Cache cache) {
+        return busWaitCycles[cache.getId()];
+    }
+
+    public int getBusGrants(Cache cache) {
+        return busGrants[cache.getId()];
+    }
+
+    /**
+     * Number of blocks held by at least one cache.
+     */
+    protected int getTrackedBlocks() {
+        return snoopFilter.size();
+    }
+
+    /**
+     * Whether the access the cache queued first can be granted the bus now.
+     */
+    protected abstract boolean canStart(Cache cache);
+
+    /**
+     * Notifies the requester and the caches holding a valid copy of the block, in id order as on a broadcast.
+     * The caches only holding the tag of an invalidated copy are not snooped, they are told of the request.
+     * Returns the cycles the last cache answering with extra cycles asked for, that cache is left in supplier.
+     */
+    protected int notifyCaches(Request request) {
+        int requesterId = request.getSenderId();
+        long blockId = getBlockId(request);
+        snoopFilter.copyValidHolders(blockId, snoopTargets);
+        snoopFilter.copyTagHolders(blockId, invalidHolders);
+        snoopTargets[requesterId / Long.SIZE] |= 1L << requesterId;
+
+        for (int word = 0; word < invalidHolders.length; word++) {
+            for (long holders = invalidHolders[word] & ~snoopTargets[word]; holders != 0; holders &= holders - 1) {
+                caches.get(word * Long.SIZE + Long.numberOfTrailingZeros(holders)).invalidCopySnooped();
+            }
+        }
+
+        supplier = null;
+        int extra_cycles = 0;
+        int snooped = 0;
+        for (int word = 0; word < snoopTargets.length; word++) {
+            for (long targets = snoopTargets[word]; targets != 0; targets &= targets - 1) {
+                Cache c = caches.get(word * Long.SIZE + Long.numberOfTrailingZeros(targets));
+                int extra = c.notifyRequestAndGetExtraCycles(request);
+                if (extra > 0) {
+                    supplier = c;
+                    extra_cycles = extra;
+                }
+                snooped++;
+            }
+        }
+        snoopsAvoided += caches.size() - snooped;
+        return extra_cycles;
+    }
+
+    /**
+     * Number of caches other than the requester holding a valid copy of the block of the request.
+     */
+    protected int countValidHolders(Request request) {
+        int requesterId = request.getSenderId();
+        snoopFilter.copyValidHolders(getBlockId(request), validHolders);
+        validHolders[requesterId / Long.SIZE] &= ~(1L << requesterId);
+        int count = 0;
+        for (long holders : validHolders) {
+            count += Long.bitCount(holders);
+        }
+        return count;
+    }
+
+    protected long getBlockId(Request request) {
+        return caches.get(request.getSenderId()).getBlockId(request.getAddress());
+    }
+
+    protected void setNewRequest() {
+        Cache cache = nextCache();
+        if (cache != null) {
+            busWaitCycles[cache.getId()] += bus.getCycle() - cache.getQueuedCycle(this);
+            busGrants[cache.getId()]++;
+            grant(cache.getRequest(this));
+            return;
+        }
+        currentRequest = null;
+        bus.setCurrentRequest(null);
+    }
+
+    protected void grant(Request request) {
+        this.currentRequest = request;
+        this.bus.setCurrentRequest(request);
+    }
+
+    // the caches with a miss queued go before those with only prefetches queued
+    private Cache nextCache() {
+        Cache cache = arbiter.next(c -> !c.isPrefetchQueued(this) && canStart(c));
+        return cache != null ? cache : arbiter.next(this::canStart);
+    }
+}
@@ -0,0 +1,10 @@
+package bus;
+
+/**
+ * Point to point messages of the directory protocol. Requests go from a cache to the home of the block, the home
+ * forwards reads to the cache supplying the block and sends invalidations or updates to the other valid copies,
+ * each of which answers with an ack. The block itself travels in a data message.
+ */
+public enum DirectoryMessage {
+    READ_REQUEST, WRITE_REQUEST, UPDATE_REQUEST, FORWARD, INVALIDATION, UPDATE, ACK, DATA
+}
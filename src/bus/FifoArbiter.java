@@ -0,0 +1,43 @@
+package bus;
+
+import cache.Cache;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.function.Predicate;
+
+/**
+ * Grants the bus in the order the caches queued up for it.
+ */
+final class FifoArbiter implements BusArbiter {
+
+    private final Queue<Cache> cacheQueue = new LinkedList<>();
+
+    @Override
+    public void add(Cache cache) {
+        cacheQueue.add(cache);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cacheQueue.isEmpty();
+    }
+
+    @Override
+    public void remove(Cache cache) {
+        cacheQueue.remove(cache);
+    }
+
+    @Override
+    public Cache next(Predicate<Cache> canStart) {
+        for (Iterator<Cache> queued = cacheQueue.iterator(); queued.hasNext(); ) {
+            Cache cache = queued.next();
+            if (canStart.test(cache)) {
+                queued.remove();
+                return cache;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package bus;
+
+import cache.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Always grants the bus to the queued cache with the lowest id, the others can starve.
+ */
+final class FixedPriorityArbiter implements BusArbiter {
+
+    private final List<Cache> queued = new ArrayList<>();
+
+    @Override
+    public void add(Cache cache) {
+        queued.add(cache);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queued.isEmpty();
+    }
+
+    @Override
+    public void remove(Cache cache) {
+        queued.remove(cache);
+    }
+
+    @Override
+    public Cache next(Predicate<Cache> canStart) {
+        int granted = -1;
+        for (int i = 0; i < queued.size(); i++) {
+            Cache cache = queued.get(i);
+            if ((granted < 0 || cache.getId() < queued.get(granted).getId()) && canStart.test(cache)) {
+                granted = i;
+            }
+        }
+        return granted < 0 ? null : queued.remove(granted);
+    }
+}
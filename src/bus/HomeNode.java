@@ -0,0 +1,123 @@
+package bus;
+
+import cache.Cache;
+import common.Constants;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Home node of a directory, owning its share of the blocks. It keeps its bus only for the lookup of the block in the
+ * snoop filter, which holds the sharers of every block. The request then reaches the valid copies point to point,
+ * one NETWORK_HOP_LATENCY away from each other, and the data goes back to the requester alone.
+ * Any number of requests for distinct blocks can be in flight, those for a block with a request in flight wait.
+ */
+public final class HomeNode extends CoherenceController {
+
+    private final Set<Long> blocksInFlight;
+    private final long[] messages;
+    private int peakDirectoryEntries;
+
+    public HomeNode(BusArbiter arbiter) {
+        super(arbiter);
+        this.blocksInFlight = new HashSet<>();
+        this.messages = new long[DirectoryMessage.values().length];
+        this.peakDirectoryEntries = 0;
+    }
+
+    // the home found the sharers of the block, the request travels on to them and their answers back
+    @Override
+    public void alert() {
+        assert currentRequest != null;
+
+        int others = countValidHolders(currentRequest);
+        switch (currentRequest.getBusEvent()) {
+            case BusRd:
+                messages[DirectoryMessage.READ_REQUEST.ordinal()]++;
+                break;
+            case BusRdX:
+                messages[DirectoryMessage.WRITE_REQUEST.ordinal()]++;
+                break;
+            default:
+                messages[DirectoryMessage.UPDATE_REQUEST.ordinal()]++;
+                break;
+        }
+        currentRequest.setCyclesToExecute(Constants.NETWORK_HOP_LATENCY
+                + (others > 0 ? 2 * Constants.NETWORK_HOP_LATENCY : 0));
+        bus.addWaitingRequest(currentRequest);
+        setNewRequest();
+    }
+
+    /**
+     * Called by the bus once the request reached the caches, then once its data reached the requester.
+     */
+    @Override
+    public void dataReady(Request request) {
+        if (request.isDataRequest()) {
+            caches.get(request.getSenderId()).notifyRequestAndGetExtraCycles(request);
+            blocksInFlight.remove(getBlockId(request));
+        } else {
+            deliver(request);
+        }
+    }
+
+    @Override
+    public void updatePresence(Cache cache, long blockId, boolean holdsTag, boolean valid) {
+        super.updatePresence(cache, blockId, holdsTag, valid);
+        peakDirectoryEntries = Math.max(peakDirectoryEntries, getTrackedBlocks());
+    }
+
+    public long getMessages(DirectoryMessage message) {
+        return messages[message.ordinal()];
+    }
+
+    /**
+     * Largest number of blocks the directory tracked at once.
+     */
+    public int getPeakDirectoryEntries() {
+        return peakDirectoryEntries;
+    }
+
+    public int getDirectoryEntries() {
+        return getTrackedBlocks();
+    }
+
+    @Override
+    protected boolean canStart(Cache cache) {
+        return !blocksInFlight.contains(cache.getBlockId(cache.getRequestAddress(this)));
+    }
+
+    @Override
+    protected void grant(Request request) {
+        blocksInFlight.add(getBlockId(request));
+        super.grant(request);
+    }
+
+    // the caches react to the request, the data then travels to the requester, from the home when read from memory
+    private void deliver(Request request) {
+        int others = countValidHolders(request);
+        if (request.getBusEvent() == BusEvent.BusRdX) {
+            messages[DirectoryMessage.INVALIDATION.ordinal()] += others;
+            messages[DirectoryMessage.ACK.ordinal()] += others;
+        } else if (request.getBusEvent() != BusEvent.BusRd) {
+            messages[DirectoryMessage.UPDATE.ordinal()] += others;
+            messages[DirectoryMessage.ACK.ordinal()] += others;
+        }
+
+        int extra_cycles = notifyCaches(request);
+        if (extra_cycles > 0 && request.senderNeedsData()
+                && caches.get(request.getSenderId()).isWaitingFor(request)) {
+            boolean fromMemory = supplier.getId() == request.getSenderId();
+            if (!fromMemory && request.getBusEvent() == BusEvent.BusRd) {
+                messages[DirectoryMessage.FORWARD.ordinal()]++;
+            }
+            messages[DirectoryMessage.DATA.ordinal()]++;
+            busTraffic += supplier.getDataSent();
+            request.setDataRequest(true);
+            request.setCyclesToExecute(extra_cycles + (fromMemory ? Constants.NETWORK_HOP_LATENCY : 0));
+            bus.addWaitingRequest(request);
+        } else {
+            blocksInFlight.remove(getBlockId(request));
+        }
+    }
+}
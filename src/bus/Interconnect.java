@@ -0,0 +1,226 @@
+package bus;
+
+import cache.Cache;
+import common.Clocked;
+import common.Constants;
+import memory.Dram;
+import memory.LastLevelCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Independent buses, each with its own controller and snoop filter, sharing the block addresses.
+ * Block b is owned by bus b mod numBuses, consecutive blocks on consecutive buses: every request, snoop and
+ * presence update for the block goes through the controller of that bus, so coherence is kept per bus.
+ * With a directory the controllers are the home nodes of the blocks instead, sending messages point to point.
+ * Below the buses sits memory, behind a shared last level cache when there is one. Memory answers every access in
+ * a fixed number of cycles, unless it is modeled as DRAM.
+ */
+public final class Interconnect implements Clocked {
+
+    private final List<Bus> buses;
+    private final List<CoherenceController> controllers;
+    private final List<HomeNode> homes;
+    private final List<Cache> caches;
+    private final LastLevelCache llc;
+    private final Dram dram;
+
+    /**
+     * @param numBuses number of buses, or of home nodes with a directory
+     * @param busTransactions number of requests each split transaction bus can have in flight, 0 for atomic buses,
+     *                        unused with a directory
+     * @param arbitrationSeed the bus i arbiter is seeded with arbitrationSeed + i
+     * @param llc the shared last level cache, null for none
+     * @param dram the DRAM memory is modeled as, null for a fixed latency
+     */
+    public Interconnect(int numBuses, int busTransactions, boolean directory, ArbitrationPolicy arbitration,
+                        long arbitrationSeed, LastLevelCache llc, Dram dram) {
+        this.buses = new ArrayList<>(numBuses);
+        this.controllers = new ArrayList<>(numBuses);
+        this.homes = new ArrayList<>(directory ? numBuses : 0);
+        this.caches = new ArrayList<>();
+        this.llc = llc;
+        this.dram = dram;
+        if (llc != null) {
+            llc.onEviction(this::llcEvicted);
+        }
+        for (int i = 0; i < numBuses; i++) {
+            Bus bus = new Bus();
+            BusArbiter arbiter = arbitration.createArbiter(arbitrationSeed + i);
+            CoherenceController controller;
+            if (directory) {
+                HomeNode home = new HomeNode(arbiter);
+                homes.add(home);
+                controller = home;
+            } else {
+                controller = new BusController(busTransactions, arbiter);
+            }
+            bus.attachTo(controller);
+            controller.attachTo(bus);
+            buses.add(bus);
+            controllers.add(controller);
+        }
+    }
+
+    /**
+     * Caches must be attached in the order of their ids, starting from 0.
+     */
+    public void attach(Cache cache) {
+        caches.add(cache);
+        controllers.forEach(c -> c.attach(cache));
+        cache.linkInterconnect(this);
+    }
+
+    @Override
+    public void runForOneCycle() {
+        buses.forEach(b -> b.runForOneCycle());
+    }
+
+    @Override
+    public int cyclesUntilNextEvent() {
+        int next = NO_EVENT;
+        for (Bus bus : buses) {
+            next = Math.min(next, bus.cyclesUntilNextEvent());
+        }
+        return next;
+    }
+
+    @Override
+    public void skipCycles(int cycles) {
+        buses.forEach(b -> b.skipCycles(cycles));
+    }
+
+    /**
+     * Grants the free buses, called once every cycle has run.
+     */
+    public void arbitrate() {
+        controllers.forEach(c -> c.arbitrate());
+    }
+
+    public boolean checkExistenceInOtherCaches(int senderId, int address) {
+        return getController(caches.get(senderId).getBlockId(address)).checkExistenceInOtherCaches(senderId, address);
+    }
+
+    public boolean checkSupplierInOtherCaches(int senderId, int address) {
+        return getController(caches.get(senderId).getBlockId(address)).checkSupplierInOtherCaches(senderId, address);
+    }
+
+    public void updatePresence(Cache cache, long blockId, boolean holdsTag, boolean valid) {
+        getController(blockId).updatePresence(cache, blockId, holdsTag, valid);
+    }
+
+    /**
+     * Cycles to read the block holding the address when no cache can supply it.
+     */
+    public int readFromMemory(int address) {
+        if (llc == null) {
+            return dram == null ? Constants.MEMORY_LATENCY : dram.read(address, getCycle());
+        }
+        if (llc.read(address)) {
+            return llc.getLatency();
+        }
+        return llc.getLatency() + (dram == null ? Constants.MEMORY_LATENCY : dram.read(address, getCycle()));
+    }
+
+    /**
+     * Cycles to write back a block evicted by a cache.
+     */
+    public int writeBack(int address) {
+        if (llc == null) {
+            return dram == null ? Constants.L1_CACHE_EVICTION_LATENCY : dram.write(address, getCycle());
+        }
+        llc.write(address);
+        return llc.getLatency();
+    }
+
+    /**
+     * Cycles to flush a dirty block a cache supplies on the bus.
+     */
+    public int flush(int address) {
+        if (llc == null) {
+            return dram == null ? Constants.MEMORY_LATENCY : dram.write(address, getCycle());
+        }
+        llc.write(address);
+        return llc.getLatency();
+    }
+
+    public LastLevelCache getLastLevelCache() {
+        return llc;
+    }
+
+    public Dram getDram() {
+        return dram;
+    }
+
+    public List<Bus> getBuses() {
+        return buses;
+    }
+
+    public List<CoherenceController> getControllers() {
+        return controllers;
+    }
+
+    /**
+     * The home nodes of the directory, none without one.
+     */
+    public List<HomeNode> getHomes() {
+        return homes;
+    }
+
+    public int getBusTraffic() {
+        return controllers.stream().mapToInt(c -> c.getBusTraffic()).sum();
+    }
+
+    public long getSnoopsAvoided() {
+        return controllers.stream().mapToLong(c -> c.getSnoopsAvoided()).sum();
+    }
+
+    public long getBusWaitCycles(Cache cache) {
+        return controllers.stream().mapToLong(c -> c.getBusWaitCycles(cache)).sum();
+    }
+
+    public double getAverageBusWait(Cache cache) {
+        int grants = controllers.stream().mapToInt(c -> c.getBusGrants(cache)).sum();
+        return grants == 0 ? 0 : ((double) getBusWaitCycles(cache)) / grants;
+    }
+
+    public boolean isDirectory() {
+        return !homes.isEmpty();
+    }
+
+    public long getMessages(DirectoryMessage message) {
+        return homes.stream().mapToLong(h -> h.getMessages(message)).sum();
+    }
+
+    public CoherenceController getController(long blockId) {
+        if (controllers.size() == 1) {
+            return controllers.get(0);
+        }
+        return controllers.get((int) (blockId % controllers.size()));
+    }
+
+    // the dirty block is written back to memory behind the requests, it only keeps its DRAM bank busy
+    private boolean llcEvicted(int firstAddress, boolean dirty) {
+        boolean dirtyCopy = llc.isInclusive() && backInvalidate(firstAddress);
+        if ((dirty || dirtyCopy) && dram != null) {
+            dram.write(firstAddress, getCycle());
+        }
+        return dirtyCopy;
+    }
+
+    // the private blocks may be smaller than the block of the shared cache, every one it covers is dropped
+    private boolean backInvalidate(int firstAddress) {
+        boolean dirty = false;
+        for (Cache cache : caches) {
+            for (int offset = 0; offset < llc.getBlockSize(); offset += cache.getBlockSize()) {
+                dirty |= cache.backInvalidate(firstAddress + offset);
+            }
+        }
+        return dirty;
+    }
+
+    private long getCycle() {
+        return buses.get(0).getCycle();
+    }
+}
@@ -0,0 +1,51 @@
+package bus;
+
+import cache.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Grants the bus to a queued cache drawn uniformly from a seeded generator.
+ */
+final class RandomArbiter implements BusArbiter {
+
+    private final List<Cache> queued = new ArrayList<>();
+    private final List<Integer> candidates = new ArrayList<>();
+    private final Random random;
+
+    RandomArbiter(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void add(Cache cache) {
+        queued.add(cache);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queued.isEmpty();
+    }
+
+    @Override
+    public void remove(Cache cache) {
+        queued.remove(cache);
+    }
+
+    @Override
+    public Cache next(Predicate<Cache> canStart) {
+        candidates.clear();
+        for (int i = 0; i < queued.size(); i++) {
+            if (canStart.test(queued.get(i))) {
+                candidates.add(i);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return queued.remove((int) candidates.get(random.nextInt(candidates.size())));
+    }
+}
@@ -0,0 +1,54 @@
+package bus;
+
+import cache.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Grants the bus to the first queued cache following, in id order, the one it was last granted to.
+ */
+final class RoundRobinArbiter implements BusArbiter {
+
+    private final List<Cache> queued = new ArrayList<>();
+    private int lastGranted = -1;
+
+    @Override
+    public void add(Cache cache) {
+        queued.add(cache);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queued.isEmpty();
+    }
+
+    @Override
+    public void remove(Cache cache) {
+        queued.remove(cache);
+    }
+
+    @Override
+    public Cache next(Predicate<Cache> canStart) {
+        int granted = -1;
+        for (int i = 0; i < queued.size(); i++) {
+            Cache cache = queued.get(i);
+            if ((granted < 0 || comesBefore(cache.getId(), queued.get(granted).getId())) && canStart.test(cache)) {
+                granted = i;
+            }
+        }
+        if (granted < 0) {
+            return null;
+        }
+        Cache cache = queued.remove(granted);
+        lastGranted = cache.getId();
+        return cache;
+    }
+
+    private boolean comesBefore(int id, int otherId) {
+        boolean wrapped = id <= lastGranted;
+        boolean otherWrapped = otherId <= lastGranted;
+        return wrapped == otherWrapped ? id < otherId : otherWrapped;
+    }
+}
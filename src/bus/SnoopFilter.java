@@ -0,0 +1,182 @@
+package bus;
+
+import java.util.Arrays;
+
+/**
+ * Presence vectors per block, kept in an open addressing table keyed by block id.
+ * For every block it records which caches hold its tag in any state and which ones hold a valid copy.
+ * Caches holding the tag of an invalidated copy are kept apart: they are not snooped, only told of the requests.
+ */
+final class SnoopFilter {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private int words;
+    private int capacity;
+    private int size;
+    private long[] keys;
+    private boolean[] occupied;
+    private long[] holders;
+
+    SnoopFilter() {
+        this.words = 1;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    void ensureCaches(int numCaches) {
+        int neededWords = (numCaches + Long.SIZE - 1) / Long.SIZE;
+        if (neededWords > words) {
+            rehash(capacity, neededWords);
+        }
+    }
+
+    void update(long block, int cacheId, boolean holdsTag, boolean valid) {
+        int slot = find(block);
+        if (slot < 0) {
+            if (!holdsTag) {
+                return;
+            }
+            slot = insert(block);
+        }
+
+        int base = slot * 2 * words;
+        int word = cacheId / Long.SIZE;
+        long bit = 1L << cacheId;
+        holders[base + word] = holdsTag ? holders[base + word] | bit : holders[base + word] & ~bit;
+        holders[base + words + word] = valid ? holders[base + words + word] | bit : holders[base + words + word] & ~bit;
+
+        if (!holdsTag && isEmpty(base)) {
+            remove(slot);
+        }
+    }
+
+    boolean isValidElsewhere(long block, int cacheId) {
+        int slot = find(block);
+        if (slot < 0) {
+            return false;
+        }
+        int base = slot * 2 * words + words;
+        for (int i = 0; i < words; i++) {
+            long others = i == cacheId / Long.SIZE ? holders[base + i] & ~(1L << cacheId) : holders[base + i];
+            if (others != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the caches holding the tag of the block into target, which must have at least getWords() longs.
+     */
+    void copyTagHolders(long block, long[] target) {
+        int slot = find(block);
+        if (slot < 0) {
+            Arrays.fill(target, 0, words, 0);
+        } else {
+            System.arraycopy(holders, slot * 2 * words, target, 0, words);
+        }
+    }
+
+    /**
+     * Copies the caches holding a valid copy of the block into target, which must have at least getWords() longs.
+     */
+    void copyValidHolders(long block, long[] target) {
+        int slot = find(block);
+        if (slot < 0) {
+            Arrays.fill(target, 0, words, 0);
+        } else {
+            System.arraycopy(holders, slot * 2 * words + words, target, 0, words);
+        }
+    }
+
+    /**
+     * Number of blocks held by at least one cache.
+     */
+    int size() {
+        return size;
+    }
+
+    int getWords() {
+        return words;
+    }
+
+    private boolean isEmpty(int base) {
+        for (int i = 0; i < words; i++) {
+            if (holders[base + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int home(long block) {
+        return (int) ((block * HASH_MULTIPLIER) >>> (Long.SIZE - Integer.numberOfTrailingZeros(capacity)));
+    }
+
+    private int find(long block) {
+        int mask = capacity - 1;
+        for (int slot = home(block); occupied[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == block) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(long block) {
+        if (2 * (size + 1) > capacity) {
+            rehash(capacity * 2, words);
+        }
+        int mask = capacity - 1;
+        int slot = home(block);
+        while (occupied[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        occupied[slot] = true;
+        keys[slot] = block;
+        size++;
+        return slot;
+    }
+
+    private void remove(int slot) {
+        int mask = capacity - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; occupied[i]; i = (i + 1) & mask) {
+            // an entry can fill the hole when the hole lies between its home slot and its current slot
+            if (((i - home(keys[i])) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                System.arraycopy(holders, i * 2 * words, holders, hole * 2 * words, 2 * words);
+                hole = i;
+            }
+        }
+        occupied[hole] = false;
+        Arrays.fill(holders, hole * 2 * words, (hole + 1) * 2 * words, 0);
+        size--;
+    }
+
+    private void rehash(int newCapacity, int newWords) {
+        long[] oldKeys = keys;
+        boolean[] oldOccupied = occupied;
+        long[] oldHolders = holders;
+        int oldWords = words;
+
+        words = newWords;
+        allocate(newCapacity);
+        for (int i = 0; i < oldOccupied.length; i++) {
+            if (oldOccupied[i]) {
+                int slot = insert(oldKeys[i]);
+                System.arraycopy(oldHolders, i * 2 * oldWords, holders, slot * 2 * words, oldWords);
+                System.arraycopy(oldHolders, i * 2 * oldWords + oldWords, holders, slot * 2 * words + words, oldWords);
+            }
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        size = 0;
+        keys = new long[capacity];
+        occupied = new boolean[capacity];
+        holders = new long[capacity * 2 * words];
+    }
+}
@@ -0,0 +1,41 @@
+package cache;
+
+/**
+ * Splits an address into its block, then the block into the set it maps to and the tag it is stored with, for a
+ * geometry of numSets sets of blocks of blockSize bytes. The block of an address is its unsigned value divided by
+ * blockSize, the set and tag of a block identify it back.
+ * With hashed indexing the set is the XOR of the low bits of the block and of its tag (the sum modulo numSets for
+ * geometries other than powers of two), so that blocks a multiple of numSets apart spread over several sets.
+ */
+public interface AddressMapper {
+
+    /**
+     * Uses shifts and masks when both numSets and blockSize are powers of two, divisions otherwise.
+     */
+    static AddressMapper create(int numSets, int blockSize, boolean hashed) {
+        if (Integer.bitCount(numSets) == 1 && Integer.bitCount(blockSize) == 1) {
+            return new PowerOfTwoAddressMapper(numSets, blockSize, hashed);
+        }
+        return new GeneralAddressMapper(numSets, blockSize, hashed);
+    }
+
+    long getBlock(int address);
+
+    int getSet(long block);
+
+    int getTag(long block);
+
+    /**
+     * The block stored in the set with the tag.
+     */
+    long getBlock(int set, int tag);
+
+    /**
+     * First address of the block.
+     */
+    int getAddress(long block);
+
+    int getNumSets();
+
+    int getBlockSize();
+}
@@ -1,65 +1,290 @@
 package cache;
 
 import bus.Bus;
-import bus.BusController;
+import bus.BusEvent;
+import bus.CoherenceController;
+import bus.Interconnect;
 import bus.Request;
 import cache.instruction.CacheInstruction;
-import cache.lru.LruQueue;
+import cache.instruction.CacheInstructionType;
+import cache.prefetch.Prefetcher;
+import cache.replacement.Replacement;
+import cache.replacement.ReplacementPolicy;
 import common.Clocked;
+import common.Constants;
 import cpu.Cpu;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntConsumer;
 
+
+/**
+ * The protocols handle one access at a time, the one held by mshr. With several MSHRs the cache accepts a new access
+ * while others are in progress (non-blocking cache), as long as it does not touch a line with an access in progress.
+ * With a write back buffer a dirty block leaves the cache for the buffer and the miss evicting it goes on at once,
+ * the buffer still answers the snoops for its blocks while it writes them back to memory.
+ * With a prefetcher the cache also fetches the blocks it predicts, each in one of PREFETCH_MSHRS MSHRs of its own.
+ * A prediction is dropped when the block is in the cache, its line has an access in progress or no such MSHR is free.
+ */
 public abstract class Cache implements Clocked {
 
     protected int privateAccess;
     protected int sharedAccess;
     protected Cpu cpu;
-    protected BusController busController;
+    protected Interconnect interconnect;
     protected Bus bus;
-    protected CacheState state;
+    protected Mshr mshr;
     protected int nbInvalidations;
-    protected final int cacheSize;
+    protected int nbDirtyTransfers;
+    protected long missCycles;
+    protected int dataSent;
+    protected final AddressMapper addressMapper;
     protected final int blockSize;
-    protected final LruQueue[] lruQueues;
+    protected final Replacement replacement;
+    protected final int[] tags;
+    protected final byte[] states;
     protected final int numLines;
     protected final int associativity;
     protected final int id;
+    private final Mshr[] mshrs;
+    private final int numMshrs;
+    private long missingCycles;
+    private final List<QueuedAccess> busQueue;
+    private final WriteBackBuffer writeBackBuffer;
+    private int nbBufferedWriteBacks;
+    private int nbWriteBackBufferFull;
+    private int nbBackInvalidations;
+    private int nbBackInvalidationWriteBacks;
+    private final List<Integer> deferredBackInvalidations;
+    private final Prefetcher prefetcher;
+    // this::prefetch, built once instead of on every access
+    private final IntConsumer prefetchCallback;
+    private final boolean[] prefetched;
+    private int nbPrefetches;
+    private int nbUsefulPrefetches;
+    private int nbLatePrefetches;
 
-    public Cache(int id, int cacheSize, int blockSize, int associativity) {
+    /**
+     * @param prefetcher null for no prefetching
+     * @param addressMapper maps addresses to the sets of the cache, it can be shared by caches of the same geometry
+     * @param replacementSeed seed of the random replacement policy
+     */
+    public Cache(int id, AddressMapper addressMapper, int associativity, int numMshrs, int writeBackBufferDepth,
+                 Prefetcher prefetcher, ReplacementPolicy replacementPolicy, long replacementSeed) {
 
         this.id = id;
-        this.cacheSize = cacheSize;
-        this.blockSize = blockSize;
+        this.addressMapper = addressMapper;
+        this.blockSize = addressMapper.getBlockSize();
         this.associativity = associativity;
-        this.numLines = cacheSize / (blockSize * associativity);
-        this.lruQueues = new LruQueue[this.numLines];
-        this.state = CacheState.IDLE;
-        this.nbInvalidations = 0;
-        for (int i = 0; i < numLines; i++) {
-            lruQueues[i] = new LruQueue(associativity);
+        this.numLines = addressMapper.getNumSets();
+        this.replacement = replacementPolicy.createReplacement(numLines, associativity, replacementSeed);
+        this.tags = new int[numLines * associativity];
+        this.states = new byte[numLines * associativity];
+        this.numMshrs = numMshrs;
+        this.mshrs = new Mshr[numMshrs + (prefetcher != null ? Constants.PREFETCH_MSHRS : 0)];
+        for (int i = 0; i < mshrs.length; i++) {
+            mshrs[i] = new Mshr(i >= numMshrs);
         }
+        this.mshr = mshrs[0];
+        this.busQueue = new ArrayList<>(numMshrs);
+        this.writeBackBuffer = writeBackBufferDepth > 0 ? new WriteBackBuffer(writeBackBufferDepth) : null;
+        this.nbBufferedWriteBacks = 0;
+        this.nbWriteBackBufferFull = 0;
+        this.nbBackInvalidations = 0;
+        this.nbBackInvalidationWriteBacks = 0;
+        this.deferredBackInvalidations = new ArrayList<>();
+        this.prefetcher = prefetcher;
+        this.prefetchCallback = this::prefetch;
+        this.prefetched = prefetcher != null ? new boolean[tags.length] : null;
+        this.nbPrefetches = 0;
+        this.nbUsefulPrefetches = 0;
+        this.nbLatePrefetches = 0;
+        this.dataSent = 0;
+        this.nbInvalidations = 0;
+        this.nbDirtyTransfers = 0;
+        this.missCycles = 0;
+        this.missingCycles = 0;
     }
 
     public int getNbInvalidations() {
         return nbInvalidations;
     }
 
+    /**
+     * Number of times this cache supplied a dirty block to another cache without writing it back to memory.
+     */
+    public int getNbDirtyTransfers() {
+        return nbDirtyTransfers;
+    }
+
     public void linkCpu(Cpu cpu) {
         this.cpu = cpu;
     }
 
+    @Override
+    public void runForOneCycle() {
+        countMissingCycles(1);
+        drainWriteBacks(1);
+        for (Mshr m : mshrs) {
+            mshr = m;
+            switch (m.getState()) {
+                case IDLE:
+                case WAITING_FOR_BUS_MESSAGE:
+                case WAITING_FOR_BUS_DATA:
+                    break;
+                case WAITING_FOR_CACHE_HIT:
+                    accessDone();
+                    break;
+                case WAITING_FOR_MEMORY:
+                    m.setMemoryCycles(m.getMemoryCycles() - 1);
+                    if (m.getMemoryCycles() <= 0) {
+                        invalidate(m.getBlockToEvacuate());
+                        access(false);
+                    }
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public int cyclesUntilNextEvent() {
+        int next = NO_EVENT;
+        for (Mshr m : mshrs) {
+            if (m.getState() == CacheState.WAITING_FOR_CACHE_HIT) {
+                next = 1;
+            } else if (m.getState() == CacheState.WAITING_FOR_MEMORY) {
+                next = Math.min(next, Math.max(m.getMemoryCycles(), 1));
+            }
+        }
+        if (writeBackBuffer != null && !writeBackBuffer.isEmpty()) {
+            next = Math.min(next, Math.max(writeBackBuffer.getCyclesLeft(), 1));
+        }
+        return next;
+    }
+
+    @Override
+    public void skipCycles(int cycles) {
+        countMissingCycles(cycles);
+        drainWriteBacks(cycles);
+        for (Mshr m : mshrs) {
+            if (m.getState() == CacheState.WAITING_FOR_MEMORY) {
+                m.setMemoryCycles(m.getMemoryCycles() - cycles);
+            }
+        }
+    }
+
     public int notifyRequestAndGetExtraCycles(Request request) {
         boolean isOriginalSender = request.getSenderId() == this.id;
 
         if (!isOriginalSender) {
-            return snoopTransition(request);
+            int extraCycles = snoopTransition(request);
+            return isWriteBackBuffered(request.getAddress()) ? snoopWriteBackBuffer(request, extraCycles) : extraCycles;
         } else {
-            return receiveMessage(request);
+            // the access the request was sent for may be over, the message is then stale
+            mshr = findMshr(request);
+            return mshr == null ? 0 : receiveMessage(request);
+        }
+
+    }
+
+    public void ask(CacheInstruction instruction) {
+        ask(instruction.getCacheInstructionType(), instruction.getAddress());
+    }
+
+    /**
+     * Starts an access, there must be an MSHR free for it: canAccept must hold on a non-blocking cache.
+     */
+    public void ask(CacheInstructionType type, int address) {
+        for (int i = 0; i < numMshrs; i++) {
+            Mshr m = mshrs[i];
+            if (m.getState() == CacheState.IDLE) {
+                boolean miss = prefetcher != null && countPrefetchUse(address);
+                mshr = m;
+                m.start(type, address);
+                access(true);
+                if (prefetcher != null) {
+                    prefetcher.access(address, miss, prefetchCallback);
+                }
+                return;
+            }
         }
+        throw new IllegalStateException("No MSHR free in cache " + id);
+    }
 
+    /**
+     * Whether an access to the address can start now: an MSHR is free and no access in progress uses its line.
+     */
+    public boolean canAccept(int address) {
+        int line = getLineNumber(address);
+        boolean free = false;
+        for (Mshr m : mshrs) {
+            if (m.getState() == CacheState.IDLE) {
+                free |= !m.isPrefetch();
+            } else if (getLineNumber(m.getAddress()) == line) {
+                return false;
+            }
+        }
+        return free;
     }
 
-    public abstract void ask(CacheInstruction instruction);
+    /**
+     * Whether no access of the cpu is in progress, prefetches may be.
+     */
+    public boolean isIdle() {
+        for (int i = 0; i < numMshrs; i++) {
+            if (mshrs[i].getState() != CacheState.IDLE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the copies of the block holding the address, which an inclusive shared cache evicted, and returns whether
+     * the cache held it dirty: its data then goes to memory with the evicted block. A copy in the write back buffer is
+     * dropped at once, the shared cache already had its data. A block with an access in progress on its line is
+     * dropped once the access is over, its data may be in flight.
+     */
+    public boolean backInvalidate(int address) {
+        boolean dropped = false;
+        long blockId = getBlockId(address);
+        if (isBuffered(blockId)) {
+            writeBackBuffer.remove(blockId);
+            updatePresence(blockId);
+            dropped = true;
+        }
+        boolean dirty = false;
+        int block = findBlock(address);
+        if (block >= 0 && isValid(block)) {
+            if (isLineBusy(getLineNumber(address))) {
+                deferredBackInvalidations.add(address);
+            } else {
+                dirty = isDirty(block);
+                invalidate(block);
+                dropped = true;
+            }
+        }
+        if (dropped) {
+            nbBackInvalidations++;
+        }
+        if (dirty) {
+            nbBackInvalidationWriteBacks++;
+        }
+        return dirty;
+    }
+
+    public int getNbBackInvalidations() {
+        return nbBackInvalidations;
+    }
+
+    /**
+     * Number of dirty blocks dropped on back invalidations, each of which was written back to memory.
+     */
+    public int getNbBackInvalidationWriteBacks() {
+        return nbBackInvalidationWriteBacks;
+    }
 
     public int getPrivateAccess() {
         return privateAccess;
@@ -69,40 +294,521 @@ public abstract class Cache implements Clocked {
         return sharedAccess;
     }
 
-    public void linkBusController(BusController busController) {
-        this.busController = busController;
+    public void linkInterconnect(Interconnect interconnect) {
+        this.interconnect = interconnect;
+        for (int block = 0; block < tags.length; block++) {
+            updatePresence(block / associativity, tags[block]);
+        }
+    }
+
+    /**
+     * Request of the first access queued on the bus of the controller, which is then no longer queued.
+     */
+    public Request getRequest(CoherenceController controller) {
+        Mshr m = busQueue.remove(findQueued(controller)).mshr;
+        assert m.getState() != CacheState.IDLE;
+        mshr = m;
+        Request request = createRequest();
+        m.setRequest(request);
+        return request;
     }
 
-    public abstract Request getRequest();
+    /**
+     * Whether an access in progress still waits on the request, the last one it was granted the bus for.
+     */
+    public boolean isWaitingFor(Request request) {
+        return findMshr(request) != null;
+    }
+
+    /**
+     * Whether the access getRequest would return is a prefetch, the cache then has no miss queued on the controller.
+     */
+    public boolean isPrefetchQueued(CoherenceController controller) {
+        return busQueue.get(findQueued(controller)).mshr.isPrefetch();
+    }
+
+    /**
+     * Address of the first access queued on the bus of the controller.
+     */
+    public int getRequestAddress(CoherenceController controller) {
+        return busQueue.get(findQueued(controller)).mshr.getAddress();
+    }
+
+    /**
+     * Bus cycle at which the first access queued on the bus of the controller queued up.
+     */
+    public long getQueuedCycle(CoherenceController controller) {
+        return busQueue.get(findQueued(controller)).cycle;
+    }
 
     public int getId() {
         return id;
     }
 
+    public int getBlockSize() {
+        return blockSize;
+    }
+
     public Cpu getCpu() {
         return cpu;
     }
 
-    public abstract int getDataSent();
+    public int getDataSent() {
+        int tmp = dataSent;
+        dataSent = 0;
+        return tmp;
+    }
 
     public abstract boolean cacheHit(int address);
 
+    /**
+     * Whether the cache would answer a request for the address with the block, every valid copy does by default.
+     */
+    public boolean canSupply(int address) {
+        return cacheHit(address) || isWriteBackBuffered(address);
+    }
+
     public abstract int getNbCacheMiss();
 
+    public boolean hasWriteBackBuffer() {
+        return writeBackBuffer != null;
+    }
+
+    /**
+     * Number of dirty blocks evicted through the write back buffer, without delaying the miss evicting them.
+     */
+    public int getNbBufferedWriteBacks() {
+        return nbBufferedWriteBacks;
+    }
+
+    /**
+     * Number of dirty blocks written back in place, delaying the miss evicting them, because the buffer was full.
+     */
+    public int getNbWriteBackBufferFull() {
+        return nbWriteBackBufferFull;
+    }
+
+    public boolean hasPrefetcher() {
+        return prefetcher != null;
+    }
+
+    public int getNbPrefetches() {
+        return nbPrefetches;
+    }
+
+    /**
+     * Number of prefetched blocks the cpu accessed, in time or while they were still being fetched.
+     */
+    public int getNbUsefulPrefetches() {
+        return nbUsefulPrefetches + nbLatePrefetches;
+    }
+
+    /**
+     * Number of prefetched blocks the cpu accessed while they were still being fetched.
+     */
+    public int getNbLatePrefetches() {
+        return nbLatePrefetches;
+    }
+
+    /**
+     * Percentage of the prefetches the cpu accessed.
+     */
+    public double getPrefetchAccuracy() {
+        return nbPrefetches == 0 ? 0 : ((double) getNbUsefulPrefetches()) / nbPrefetches * 100;
+    }
+
+    /**
+     * Percentage of the misses there would have been without prefetching that the prefetches avoided, fully or not.
+     */
+    public double getPrefetchCoverage() {
+        int useful = getNbUsefulPrefetches();
+        return useful == 0 ? 0 : ((double) useful) / (useful + getNbCacheMiss()) * 100;
+    }
+
+    /**
+     * Percentage of the useful prefetches whose block was in the cache by the time the cpu accessed it.
+     */
+    public double getPrefetchTimeliness() {
+        int useful = getNbUsefulPrefetches();
+        return useful == 0 ? 0 : ((double) nbUsefulPrefetches) / useful * 100;
+    }
+
+    public double getAverageMissLatency() {
+        return getNbCacheMiss() == 0 ? 0 : ((double) missCycles) / getNbCacheMiss();
+    }
+
+    public long getMissCycles() {
+        return missCycles;
+    }
+
+    /**
+     * Average number of misses in progress over the cycles with at least one.
+     */
+    public double getMemoryLevelParallelism() {
+        return missingCycles == 0 ? 0 : ((double) missCycles) / missingCycles;
+    }
+
     public double getMissRate() {
         double missRate = ((double) getNbCacheMiss()) / getCpu().getCacheInstructionCount();
         return missRate * 100;
     }
 
+    /**
+     * Identifies the block holding the address, the same in every cache since they share their block size.
+     */
+    public long getBlockId(int address) {
+        return addressMapper.getBlock(address);
+    }
+
+    /**
+     * Handles the access held by mshr, from its start (newAccess) or once the block it evicted was written back.
+     */
+    protected abstract void access(boolean newAccess);
+
+    protected abstract Request createRequest();
+
+    /**
+     * Called once the write back of the block is over.
+     */
+    protected abstract void invalidate(int block);
+
+    /**
+     * Queues the access held by mshr up for the bus.
+     */
+    protected void queueUp() {
+        CoherenceController controller = interconnect.getController(getBlockId(mshr.getAddress()));
+        busQueue.add(new QueuedAccess(mshr, controller, controller.getCycle()));
+        controller.queueUp(this);
+    }
+
+    /**
+     * Writes the dirty block back to memory. The access held by mshr goes on at once when the block fits in the write
+     * back buffer, it waits for the write back otherwise.
+     */
+    protected void startEviction(int block) {
+        if (writeBackBuffer != null) {
+            if (!writeBackBuffer.isFull()) {
+                nbBufferedWriteBacks++;
+                writeBackBuffer.add(getBlockId(tags[block], block / associativity),
+                        interconnect.writeBack(getAddress(block)));
+                invalidate(block);
+                access(false);
+                return;
+            }
+            nbWriteBackBufferFull++;
+        }
+        mshr.setBlockToEvacuate(block);
+        mshr.setMemoryCycles(interconnect.writeBack(getAddress(block)));
+        mshr.setState(CacheState.WAITING_FOR_MEMORY);
+    }
+
+    protected void accessDone() {
+        mshr.setState(CacheState.IDLE);
+        dropQueued(mshr);
+        if (mshr.isPrefetch()) {
+            int block = findBlock(mshr.getAddress());
+            if (cpu.isWaitingFor(mshr.getAddress())) {
+                nbLatePrefetches++;
+            } else if (block >= 0) {
+                prefetched[block] = true;
+            }
+            cpu.prefetchDone();
+        } else {
+            cpu.wake(mshr.getType());
+        }
+        if (!deferredBackInvalidations.isEmpty()) {
+            backInvalidateDeferred(getLineNumber(mshr.getAddress()));
+        }
+    }
+
+    protected boolean isEvicting() {
+        return evictionCyclesLeft() >= 0;
+    }
+
+    /**
+     * Cycles left to the first write back in progress, -1 if there is none.
+     */
+    protected int evictionCyclesLeft() {
+        for (Mshr m : mshrs) {
+            if (m.getState() == CacheState.WAITING_FOR_MEMORY) {
+                return m.getMemoryCycles();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a dirty block holding the address waits in the write back buffer.
+     */
+    protected boolean isWriteBackBuffered(int address) {
+        return isBuffered(getBlockId(address));
+    }
+
     protected abstract int receiveMessage(Request request);
 
     protected abstract int snoopTransition(Request request);
 
+    protected abstract boolean isValid(int block);
+
+    /**
+     * Whether the block holds data memory does not have yet, which must be written back when it is dropped.
+     */
+    protected abstract boolean isDirty(int block);
+
+    /**
+     * Index in tags and states of the first block of the address' line holding its tag, -1 if there is none.
+     * Blocks are stored line by line, the block of way w in line l sits at l * associativity + w.
+     */
+    protected int findBlock(int address) {
+        return findBlock(getLineNumber(address), getTag(address));
+    }
+
+    protected int findBlock(int line, int tag) {
+        int first = line * associativity;
+        for (int i = first; i < first + associativity; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives the block, which must be invalid, a new tag. The old block stays known to the snoop filters as long as
+     * another way of the line holds its tag.
+     */
+    protected void setTag(int block, int tag) {
+        assert !isValid(block);
+        if (prefetched != null) {
+            prefetched[block] = false;
+        }
+        int line = block / associativity;
+        int oldTag = tags[block];
+        tags[block] = tag;
+        if (interconnect != null) {
+            if (findBlock(line, oldTag) < 0) {
+                long oldBlockId = getBlockId(oldTag, line);
+                boolean buffered = isBuffered(oldBlockId);
+                interconnect.updatePresence(this, oldBlockId, buffered, buffered);
+            }
+            long blockId = getBlockId(tag, line);
+            interconnect.updatePresence(this, blockId, true, isBuffered(blockId));
+        }
+    }
+
+    /**
+     * Sets the state of the block. The snoop filters of the bus controllers only track which caches hold a valid copy,
+     * they hear of the change when the block turns valid or invalid.
+     */
+    protected void setState(int block, int state) {
+        boolean wasValid = isValid(block);
+        states[block] = (byte) state;
+        if (interconnect != null && isValid(block) != wasValid) {
+            long blockId = getBlockId(tags[block], block / associativity);
+            interconnect.updatePresence(this, blockId, true, !wasValid || isBuffered(blockId));
+        }
+    }
+
+    /**
+     * Called in place of a snoop when the cache only holds the tag of an invalidated copy of the requested block.
+     */
+    public void invalidCopySnooped() {
+    }
+
+    /**
+     * First address of the block.
+     */
+    protected int getAddress(int block) {
+        return addressMapper.getAddress(getBlockId(tags[block], block / associativity));
+    }
+
     protected int getTag(int address) {
-        return address / cacheSize;
+        return addressMapper.getTag(addressMapper.getBlock(address));
     }
 
     protected int getLineNumber(int address) {
-        return (address % cacheSize) % (blockSize / 4);
+        return addressMapper.getSet(addressMapper.getBlock(address));
+    }
+
+    private Mshr findMshr(Request request) {
+        for (Mshr m : mshrs) {
+            if (m.getState() != CacheState.IDLE && m.getRequest() == request) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    // an access done while still queued up, on a message it did not ask for, must not be granted the bus any more
+    private void dropQueued(Mshr m) {
+        for (int i = busQueue.size() - 1; i >= 0; i--) {
+            if (busQueue.get(i).mshr == m) {
+                busQueue.remove(i).controller.dequeue(this);
+            }
+        }
+    }
+
+    // the shared cache evicted the blocks while an access was in progress on the line, the dirty ones are written
+    // back behind the requests as the shared cache has no copy of them any more
+    private void backInvalidateDeferred(int line) {
+        // taken out first, the write backs may evict more blocks from the shared cache
+        List<Integer> addresses = new ArrayList<>();
+        for (Iterator<Integer> it = deferredBackInvalidations.iterator(); it.hasNext(); ) {
+            int address = it.next();
+            if (getLineNumber(address) == line) {
+                addresses.add(address);
+                it.remove();
+            }
+        }
+        for (int address : addresses) {
+            int block = findBlock(address);
+            if (block >= 0 && isValid(block)) {
+                nbBackInvalidations++;
+                boolean dirty = isDirty(block);
+                invalidate(block);
+                if (dirty) {
+                    nbBackInvalidationWriteBacks++;
+                    interconnect.writeBack(address);
+                }
+            }
+        }
+    }
+
+    private boolean isLineBusy(int line) {
+        for (Mshr m : mshrs) {
+            if (m.getState() != CacheState.IDLE && getLineNumber(m.getAddress()) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // misses go before prefetches
+    private int findQueued(CoherenceController controller) {
+        int prefetch = -1;
+        for (int i = 0; i < busQueue.size(); i++) {
+            if (busQueue.get(i).controller == controller) {
+                if (!busQueue.get(i).mshr.isPrefetch()) {
+                    return i;
+                }
+                if (prefetch < 0) {
+                    prefetch = i;
+                }
+            }
+        }
+        if (prefetch >= 0) {
+            return prefetch;
+        }
+        throw new IllegalStateException("Cache " + id + " has no access queued on the bus");
+    }
+
+    private void countMissingCycles(int cycles) {
+        int missing = 0;
+        for (int i = 0; i < numMshrs; i++) {
+            if (mshrs[i].isMissing()) {
+                missing++;
+            }
+        }
+        missCycles += (long) missing * cycles;
+        if (missing > 0) {
+            missingCycles += cycles;
+        }
+    }
+
+    /**
+     * Whether the access of the cpu to the address misses, or hits a prefetched block for the first time: the
+     * prefetch was then useful.
+     */
+    private boolean countPrefetchUse(int address) {
+        int block = findBlock(address);
+        if (!cacheHit(address)) {
+            if (block >= 0) {
+                prefetched[block] = false;
+            }
+            return true;
+        }
+        if (prefetched[block]) {
+            prefetched[block] = false;
+            nbUsefulPrefetches++;
+            return true;
+        }
+        return false;
+    }
+
+    private void prefetch(int address) {
+        if (cacheHit(address) || isLineBusy(getLineNumber(address))) {
+            return;
+        }
+        for (int i = numMshrs; i < mshrs.length; i++) {
+            if (mshrs[i].getState() == CacheState.IDLE) {
+                nbPrefetches++;
+                mshr = mshrs[i];
+                mshr.start(CacheInstructionType.READ, address);
+                // not a miss of the cpu
+                access(false);
+                return;
+            }
+        }
+    }
+
+    /**
+     * A buffered block is dirty, the buffer supplies it when the copy in the cache, if any, does not.
+     * The requester takes the block over on a BusRdX, its write back is then no longer needed.
+     */
+    private int snoopWriteBackBuffer(Request request, int extraCycles) {
+        if (extraCycles == 0) {
+            dataSent = blockSize;
+            extraCycles = (blockSize / Constants.BYTES_IN_WORD) * Constants.BUS_WORD_LATENCY;
+        }
+        if (request.getBusEvent() == BusEvent.BusRdX) {
+            long blockId = getBlockId(request.getAddress());
+            writeBackBuffer.remove(blockId);
+            updatePresence(blockId);
+        }
+        return extraCycles;
+    }
+
+    private void drainWriteBacks(int cycles) {
+        if (writeBackBuffer != null && !writeBackBuffer.isEmpty() && writeBackBuffer.drain(cycles)) {
+            updatePresence(writeBackBuffer.poll());
+        }
+    }
+
+    private void updatePresence(long blockId) {
+        updatePresence(addressMapper.getSet(blockId), addressMapper.getTag(blockId));
+    }
+
+    // a block in the write back buffer is still a valid copy for the snoop filters
+    private void updatePresence(int line, int tag) {
+        if (interconnect != null) {
+            int block = findBlock(line, tag);
+            boolean buffered = isBuffered(getBlockId(tag, line));
+            interconnect.updatePresence(this, getBlockId(tag, line), block >= 0 || buffered,
+                    (block >= 0 && isValid(block)) || buffered);
+        }
+    }
+
+    private boolean isBuffered(long blockId) {
+        return writeBackBuffer != null && !writeBackBuffer.isEmpty() && writeBackBuffer.contains(blockId);
+    }
+
+    private long getBlockId(int tag, int line) {
+        return addressMapper.getBlock(line, tag);
+    }
+
+    /**
+     * An access waiting for the bus of the controller since the given bus cycle.
+     */
+    private static final class QueuedAccess {
+
+        private final Mshr mshr;
+        private final CoherenceController controller;
+        private final long cycle;
+
+        private QueuedAccess(Mshr mshr, CoherenceController controller, long cycle) {
+            this.mshr = mshr;
+            this.controller = controller;
+            this.cycle = cycle;
+        }
     }
 }
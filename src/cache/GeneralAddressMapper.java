@@ -0,0 +1,53 @@
+package cache;
+
+/**
+ * Any number of sets and block size, at the cost of divisions.
+ */
+final class GeneralAddressMapper implements AddressMapper {
+
+    private final int numSets;
+    private final int blockSize;
+    private final int hash;
+
+    GeneralAddressMapper(int numSets, int blockSize, boolean hashed) {
+        this.numSets = numSets;
+        this.blockSize = blockSize;
+        this.hash = hashed ? 1 : 0;
+    }
+
+    @Override
+    public long getBlock(int address) {
+        return Integer.toUnsignedLong(address) / blockSize;
+    }
+
+    @Override
+    public int getSet(long block) {
+        return (int) ((block + hash * (block / numSets)) % numSets);
+    }
+
+    @Override
+    public int getTag(long block) {
+        return (int) (block / numSets);
+    }
+
+    @Override
+    public long getBlock(int set, int tag) {
+        long longTag = Integer.toUnsignedLong(tag);
+        return longTag * numSets + Math.floorMod(set - hash * longTag, (long) numSets);
+    }
+
+    @Override
+    public int getAddress(long block) {
+        return (int) (block * blockSize);
+    }
+
+    @Override
+    public int getNumSets() {
+        return numSets;
+    }
+
+    @Override
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
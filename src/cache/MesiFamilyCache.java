@@ -0,0 +1,179 @@
+package cache;
+
+import bus.BusEvent;
+import bus.Request;
+import cache.instruction.CacheInstructionType;
+import cache.prefetch.Prefetcher;
+import cache.replacement.ReplacementPolicy;
+import common.Constants;
+
+/**
+ * The invalidation protocols of the MESI family. A read miss asks for the block with a BusRd, a write to a block
+ * held by other caches too invalidates their copies with a BusRdX, and the block comes from a cache able to supply it
+ * or from memory. The protocols define their states and how a block changes state on a fill and on a snoop.
+ */
+public abstract class MesiFamilyCache extends Cache {
+
+    private int cacheMiss;
+
+    protected MesiFamilyCache(int id, AddressMapper addressMapper, int associativity, int numMshrs,
+            int writeBackBufferDepth, Prefetcher prefetcher, ReplacementPolicy replacementPolicy,
+            long replacementSeed) {
+        super(id, addressMapper, associativity, numMshrs, writeBackBufferDepth, prefetcher, replacementPolicy,
+                replacementSeed);
+        this.cacheMiss = 0;
+    }
+
+    @Override
+    protected void access(boolean newAccess) {
+
+        int line = getLineNumber(mshr.getAddress());
+        int block = findBlock(mshr.getAddress());
+
+        if (block >= 0 && isValid(block)) {
+            replacement.access(line, block - line * associativity);
+            if (isPrivate(block)) {
+                privateAccess++;
+                mshr.setState(CacheState.WAITING_FOR_CACHE_HIT);
+            } else {
+                sharedAccess++;
+                if (mshr.getType() == CacheInstructionType.WRITE) {
+                    mshr.setState(CacheState.WAITING_FOR_BUS_MESSAGE);
+                    queueUp();
+                } else {
+                    mshr.setState(CacheState.WAITING_FOR_CACHE_HIT);
+                }
+            }
+        } else { // miss
+
+            if (newAccess) {
+                cacheMiss++;
+            }
+            int evacuatedBlock = line * associativity + replacement.victim(line);
+
+            if (isDirty(evacuatedBlock)) {
+                startEviction(evacuatedBlock);
+            } else {
+                replacement.fill(line, evacuatedBlock - line * associativity);
+                invalidate(evacuatedBlock);
+                setTag(evacuatedBlock, getTag(mshr.getAddress()));
+                mshr.setState(CacheState.WAITING_FOR_BUS_DATA);
+                queueUp();
+            }
+        }
+    }
+
+    @Override
+    protected Request createRequest() {
+
+        BusEvent event;
+        if (mshr.getType() == CacheInstructionType.READ) {
+            event = BusEvent.BusRd;
+        } else {
+            nbInvalidations++;
+            event = BusEvent.BusRdX;
+        }
+        boolean senderNeedsData;
+        senderNeedsData = !cacheHit(mshr.getAddress());
+        return new Request(id, event, mshr.getAddress(), Constants.BUS_MESSAGE_CYCLES, senderNeedsData);
+    }
+
+    @Override
+    public boolean cacheHit(int address) {
+        int block = findBlock(address);
+        return block >= 0 && isValid(block);
+    }
+
+    public int getNbCacheMiss() {
+        return cacheMiss;
+    }
+
+    @Override
+    protected int receiveMessage(Request request) {
+
+        if (mshr.getState() == CacheState.WAITING_FOR_BUS_MESSAGE && request.senderNeedsData()) {
+            // another cache invalidated the block while the upgrade was queued, it now misses
+            cacheMiss++;
+            mshr.setState(CacheState.WAITING_FOR_BUS_DATA);
+        }
+        if (mshr.getState() == CacheState.WAITING_FOR_BUS_DATA) {
+            if (request.isDataRequest()) {
+                request.setSenderNeedsData(false);
+                busTransactionOver();
+            } else if (!isSuppliedByOtherCache(request.getAddress())) {
+                mshr.setState(CacheState.WAITING_FOR_BUS_DATA);
+                return interconnect.readFromMemory(request.getAddress());
+            }
+        } else if (mshr.getState() == CacheState.WAITING_FOR_BUS_MESSAGE) {
+            busTransactionOver();
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int snoopTransition(Request request) {
+
+        int block = findBlock(request.getAddress());
+
+        if (block >= 0) {
+            if (!isValid(block)) {
+                dataSent = 0;
+                return 0;
+            }
+            return snoop(block, request);
+        }
+        return 0;
+    }
+
+    // snooping the invalidated copy would have found nothing to send
+    @Override
+    public void invalidCopySnooped() {
+        dataSent = 0;
+    }
+
+    /**
+     * Whether another cache answers a miss on the address with the block, memory does otherwise.
+     */
+    protected boolean isSuppliedByOtherCache(int address) {
+        return interconnect.checkExistenceInOtherCaches(id, address);
+    }
+
+    /**
+     * Cycles to send a whole block over the bus.
+     */
+    protected int blockTransferCycles() {
+        return (blockSize / Constants.BYTES_IN_WORD) * Constants.BUS_WORD_LATENCY;
+    }
+
+    /**
+     * Whether a write hit on the valid block goes on without the bus.
+     */
+    protected abstract boolean isPrivate(int block);
+
+    /**
+     * Sets the state of the block once the read that fetched it is over.
+     */
+    protected abstract void completeRead(int block);
+
+    /**
+     * Sets the state of the block once the write that fetched or upgraded it is over.
+     */
+    protected abstract void completeWrite(int block);
+
+    /**
+     * Reacts to the request of another cache for the valid block: sets dataSent and the new state of the block, and
+     * returns the cycles to supply it, 0 if this cache does not.
+     */
+    protected abstract int snoop(int block, Request request);
+
+    private void busTransactionOver() {
+        int block = findBlock(mshr.getAddress());
+        if (mshr.getType() == CacheInstructionType.READ) {
+            completeRead(block);
+        } else {
+            completeWrite(block);
+        }
+        accessDone();
+    }
+}
@@ -0,0 +1,82 @@
+package cache;
+
+import bus.Request;
+import cache.instruction.CacheInstructionType;
+
+/**
+ * Miss status holding register: one access of the cache in progress, from the request of the cpu until the
+ * block is in the cache. A blocking cache has a single one. Prefetches have their own, which the cpu never waits on
+ * unless it accesses the block being prefetched.
+ */
+public final class Mshr {
+
+    private CacheState state;
+    private CacheInstructionType type;
+    private int address;
+    private int memoryCycles;
+    private int blockToEvacuate;
+    private Request request;
+    private final boolean prefetch;
+
+    Mshr(boolean prefetch) {
+        this.state = CacheState.IDLE;
+        this.prefetch = prefetch;
+    }
+
+    void start(CacheInstructionType type, int address) {
+        this.type = type;
+        this.address = address;
+        this.request = null;
+    }
+
+    public CacheState getState() {
+        return state;
+    }
+
+    public void setState(CacheState state) {
+        this.state = state;
+    }
+
+    public CacheInstructionType getType() {
+        return type;
+    }
+
+    public int getAddress() {
+        return address;
+    }
+
+    public int getMemoryCycles() {
+        return memoryCycles;
+    }
+
+    void setMemoryCycles(int memoryCycles) {
+        this.memoryCycles = memoryCycles;
+    }
+
+    int getBlockToEvacuate() {
+        return blockToEvacuate;
+    }
+
+    void setBlockToEvacuate(int blockToEvacuate) {
+        this.blockToEvacuate = blockToEvacuate;
+    }
+
+    /**
+     * Last request the access was granted the bus for, null before the first one.
+     */
+    Request getRequest() {
+        return request;
+    }
+
+    void setRequest(Request request) {
+        this.request = request;
+    }
+
+    boolean isPrefetch() {
+        return prefetch;
+    }
+
+    boolean isMissing() {
+        return state == CacheState.WAITING_FOR_BUS_DATA || state == CacheState.WAITING_FOR_MEMORY;
+    }
+}
@@ -0,0 +1,60 @@
+package cache;
+
+/**
+ * Offset, set index and tag are bit fields of the address, extracted without divisions nor branches.
+ */
+final class PowerOfTwoAddressMapper implements AddressMapper {
+
+    private final int numSets;
+    private final int blockSize;
+    private final int offsetBits;
+    private final int setBits;
+    private final long setMask;
+    private final long hashMask;
+
+    PowerOfTwoAddressMapper(int numSets, int blockSize, boolean hashed) {
+        this.numSets = numSets;
+        this.blockSize = blockSize;
+        this.offsetBits = Integer.numberOfTrailingZeros(blockSize);
+        this.setBits = Integer.numberOfTrailingZeros(numSets);
+        this.setMask = numSets - 1;
+        // the tag bits folded into the set index, none without hashing
+        this.hashMask = hashed ? setMask : 0;
+    }
+
+    @Override
+    public long getBlock(int address) {
+        return Integer.toUnsignedLong(address) >>> offsetBits;
+    }
+
+    @Override
+    public int getSet(long block) {
+        return (int) ((block ^ ((block >>> setBits) & hashMask)) & setMask);
+    }
+
+    @Override
+    public int getTag(long block) {
+        return (int) (block >>> setBits);
+    }
+
+    @Override
+    public long getBlock(int set, int tag) {
+        long longTag = Integer.toUnsignedLong(tag);
+        return (longTag << setBits) | ((set ^ (longTag & hashMask)) & setMask);
+    }
+
+    @Override
+    public int getAddress(long block) {
+        return (int) (block << offsetBits);
+    }
+
+    @Override
+    public int getNumSets() {
+        return numSets;
+    }
+
+    @Override
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
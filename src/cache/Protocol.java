@@ -1,5 +1,5 @@
 package cache;
 
 public enum Protocol {
-    MESI, Dragon
+    MESI, Dragon, MOESI, MESIF
 }
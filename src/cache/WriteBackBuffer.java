@@ -0,0 +1,92 @@
+package cache;
+
+/**
+ * FIFO of the dirty blocks evicted by a cache and not yet written back, identified by their block id.
+ * Only the oldest block is being written back, the others wait for it.
+ * Each block takes the cycles its write back was given when it was added.
+ */
+final class WriteBackBuffer {
+
+    private final long[] blocks;
+    private final int[] writeCycles;
+    private int head;
+    private int size;
+    private int cyclesLeft;
+
+    WriteBackBuffer(int depth) {
+        this.blocks = new long[depth];
+        this.writeCycles = new int[depth];
+        this.head = 0;
+        this.size = 0;
+        this.cyclesLeft = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isFull() {
+        return size == blocks.length;
+    }
+
+    void add(long block, int cycles) {
+        if (size == 0) {
+            cyclesLeft = cycles;
+        }
+        blocks[(head + size) % blocks.length] = block;
+        writeCycles[(head + size) % blocks.length] = cycles;
+        size++;
+    }
+
+    boolean contains(long block) {
+        for (int i = 0; i < size; i++) {
+            if (blocks[(head + i) % blocks.length] == block) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the block without writing it back, the next block starts its write back if the block was the oldest.
+     */
+    void remove(long block) {
+        boolean oldestRemoved = size > 0 && blocks[head] == block;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int from = (head + i) % blocks.length;
+            if (blocks[from] != block) {
+                blocks[(head + kept) % blocks.length] = blocks[from];
+                writeCycles[(head + kept) % blocks.length] = writeCycles[from];
+                kept++;
+            }
+        }
+        size = kept;
+        if (oldestRemoved && size > 0) {
+            cyclesLeft = writeCycles[head];
+        }
+    }
+
+    int getCyclesLeft() {
+        return cyclesLeft;
+    }
+
+    /**
+     * Advances the write back of the oldest block, returns whether it is over.
+     */
+    boolean drain(int cycles) {
+        cyclesLeft -= cycles;
+        return cyclesLeft <= 0;
+    }
+
+    /**
+     * Removes the oldest block, once its write back is over.
+     */
+    long poll() {
+        long block = blocks[head];
+        head = (head + 1) % blocks.length;
+        size--;
+        cyclesLeft = size > 0 ? writeCycles[head] : 0;
+        return block;
+    }
+}
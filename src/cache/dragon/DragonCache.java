@@ -2,109 +2,73 @@ package cache.dragon;
 
 import bus.BusEvent;
 import bus.Request;
+import cache.AddressMapper;
 import cache.Cache;
 import cache.CacheState;
-import cache.instruction.CacheInstruction;
 import cache.instruction.CacheInstructionType;
+import cache.prefetch.Prefetcher;
+import cache.replacement.ReplacementPolicy;
 import common.Constants;
 
+import java.util.Arrays;
+
 public class DragonCache extends Cache {
 
+    private static final DragonState[] DRAGON_STATES = DragonState.values();
 
-    private CacheInstruction currentInstruction;
-    private DragonCacheBlock[][] dragonCacheBlocks;
     private int cacheMiss;
-    private int memoryCycles;
-    private DragonCacheBlock cacheBlockToEvacuate;
-    private int currentAddress;
-    private CacheInstructionType currentType;
-    private int dataSent;
 
-    public DragonCache(int id, int cacheSize, int blockSize, int associativity) {
-        super(id, cacheSize, blockSize, associativity);
-        this.dragonCacheBlocks = new DragonCacheBlock[numLines][associativity];
-        for (int i = 0; i < numLines; i++) {
-            for (int j = 0; j < associativity; j++) {
-                dragonCacheBlocks[i][j] = new DragonCacheBlock(blockSize);
-            }
-        }
-        dataSent = 0;
+    public DragonCache(int id, AddressMapper addressMapper, int associativity, int numMshrs,
+            int writeBackBufferDepth, Prefetcher prefetcher, ReplacementPolicy replacementPolicy,
+            long replacementSeed) {
+        super(id, addressMapper, associativity, numMshrs, writeBackBufferDepth, prefetcher, replacementPolicy,
+                replacementSeed);
+        Arrays.fill(states, (byte) DragonState.NOT_IN_CACHE.ordinal());
         cacheMiss = 0;
-        memoryCycles = 0;
-        currentInstruction = null;
-    }
-
-    @Override
-    public void runForOneCycle() {
-        switch (this.state) {
-            case IDLE:
-            case WAITING_FOR_BUS_DATA:
-            case WAITING_FOR_BUS_MESSAGE:
-                break;
-            case WAITING_FOR_CACHE_HIT:
-                this.state = CacheState.IDLE;
-                this.cpu.wake();
-                break;
-            case WAITING_FOR_MEMORY:
-                this.memoryCycles--;
-                if (memoryCycles <= 0) {
-                    cacheBlockToEvacuate.setState(DragonState.NOT_IN_CACHE);
-                    ask(currentInstruction);
-                }
-                break;
-        }
     }
 
     public DragonState getBlockState(int address) {
-        DragonCacheBlock cacheBlock = getCacheBlock(address);
-        return cacheBlock == null ? DragonState.NOT_IN_CACHE : cacheBlock.getState();
+        return getState(findBlock(address));
     }
 
     @Override
-    public void ask(CacheInstruction instruction) {
-        this.currentAddress = instruction.getAddress();
-        DragonState state = getBlockState(currentAddress);
-        this.currentType = instruction.getCacheInstructionType();
-        int line = getLineNumber(currentAddress);
-        int tag = getTag(currentAddress);
-        if (cacheHit(currentAddress)) {
-            lruQueues[line].update(getBlockNumber(currentAddress));
-            // currentInstruction=instruction;
+    protected void access(boolean newAccess) {
+        int line = getLineNumber(mshr.getAddress());
+        int block = findBlock(mshr.getAddress());
+        DragonState state = getState(block);
+        if (state != DragonState.NOT_IN_CACHE) {
+            replacement.access(line, block - line * associativity);
         }
         switch (state) {
             case EXCLUSIVE:
             case MODIFIED:
-                this.state = CacheState.WAITING_FOR_CACHE_HIT;
+                mshr.setState(CacheState.WAITING_FOR_CACHE_HIT);
                 privateAccess++;
                 break;
             case SM:
             case SC: {
                 if (state == DragonState.SM)
                     sharedAccess++;
-                if (currentType == CacheInstructionType.WRITE) {
-                    this.state = CacheState.WAITING_FOR_BUS_MESSAGE;
-                    busController.queueUp(this);
+                if (mshr.getType() == CacheInstructionType.WRITE) {
+                    mshr.setState(CacheState.WAITING_FOR_BUS_MESSAGE);
+                    queueUp();
                 } else {
-                    this.state = CacheState.WAITING_FOR_CACHE_HIT;
+                    mshr.setState(CacheState.WAITING_FOR_CACHE_HIT);
                 }
             }
             break;
             case NOT_IN_CACHE: {//miss
-                if (instruction != currentInstruction)
+                if (newAccess)
                     cacheMiss++;
-                currentInstruction = instruction;
-                int blockToEvacuate = lruQueues[line].blockToEvacuate();
-                DragonCacheBlock evacuatedCacheBlock = dragonCacheBlocks[line][blockToEvacuate];
-                if (evacuatedCacheBlock.getState() == DragonState.MODIFIED) {
-                    this.cacheBlockToEvacuate = evacuatedCacheBlock;
-                    this.memoryCycles = Constants.L1_CACHE_EVICTION_LATENCY;
-                    this.state = CacheState.WAITING_FOR_MEMORY;
+                int evacuatedBlock = line * associativity + replacement.victim(line);
+                if (getState(evacuatedBlock) == DragonState.MODIFIED) {
+                    startEviction(evacuatedBlock);
                 } else {
-                    lruQueues[line].evacuate();
-                    evacuatedCacheBlock.setState(DragonState.NOT_IN_CACHE);
-                    evacuatedCacheBlock.setTag(tag);
-                    this.state = CacheState.WAITING_FOR_BUS_DATA;
-                    this.busController.queueUp(this);
+                    replacement.fill(line, evacuatedBlock - line * associativity);
+                    setState(evacuatedBlock, DragonState.NOT_IN_CACHE);
+                    setTag(evacuatedBlock, getTag(mshr.getAddress()));
+                    mshr.setState(CacheState.WAITING_FOR_BUS_DATA);
+                    queueUp();
                 }
             }
             break;
@@ -126,36 +90,29 @@ public class DragonCache extends Cache {
     }
 
     @Override
-    public Request getRequest() {
+    protected Request createRequest() {
         BusEvent event;
-        if (currentType == CacheInstructionType.READ) {
+        if (mshr.getType() == CacheInstructionType.READ) {
             event = BusEvent.BusRd;
         } else {
             nbInvalidations++;
             event = BusEvent.BusUpd;
         }
-        boolean senderNeedsData = !cacheHit(currentAddress);
-        return new Request(id, event, currentAddress, Constants.BUS_MESSAGE_CYCLES, senderNeedsData);
-    }
-
-    @Override
-    public int getDataSent() {
-        int tmp = dataSent;
-        dataSent = 0;
-        return tmp;
+        boolean senderNeedsData = !cacheHit(mshr.getAddress());
+        return new Request(id, event, mshr.getAddress(), Constants.BUS_MESSAGE_CYCLES, senderNeedsData);
     }
 
     @Override
     protected int receiveMessage(Request request) {
-        if (this.state == CacheState.WAITING_FOR_BUS_DATA) {
+        if (mshr.getState() == CacheState.WAITING_FOR_BUS_DATA) {
             if (request.isDataRequest()) {
                 request.setSenderNeedsData(false);
                 busTransactionOver();
-            } else if (!busController.checkExistenceInOtherCaches(id, request.getAddress())) {
-                this.state = CacheState.WAITING_FOR_BUS_DATA;
-                return Constants.MEMORY_LATENCY;
+            } else if (!interconnect.checkExistenceInOtherCaches(id, request.getAddress())) {
+                mshr.setState(CacheState.WAITING_FOR_BUS_DATA);
+                return interconnect.readFromMemory(request.getAddress());
             }
-        } else if (this.state == CacheState.WAITING_FOR_BUS_MESSAGE) {
+        } else if (mshr.getState() == CacheState.WAITING_FOR_BUS_MESSAGE) {
             busTransactionOver();
         }
         return 0;
@@ -163,14 +120,14 @@ public class DragonCache extends Cache {
 
     @Override
     protected int snoopTransition(Request request) {
-        DragonCacheBlock dragonCacheBlock = this.getCacheBlock(request.getAddress());
+        int block = findBlock(request.getAddress());
         BusEvent busEvent = request.getBusEvent();
-        if (dragonCacheBlock == null)
+        if (block < 0)
             return 0;
         int totalCycles = 0;
-        switch (dragonCacheBlock.getState()) {
+        switch (getState(block)) {
             case EXCLUSIVE:
-                dragonCacheBlock.setState(DragonState.SC);
+                setState(block, DragonState.SC);
                 totalCycles = (blockSize / Constants.BYTES_IN_WORD) * Constants.BUS_WORD_LATENCY;// any request for access, send the block
                 dataSent = blockSize;
                 if (busEvent == BusEvent.BusUpd) {
@@ -180,13 +137,13 @@ public class DragonCache extends Cache {
                 return totalCycles;
             case SM:
                 if (busEvent == BusEvent.BusUpd) {
-                    dragonCacheBlock.setState(DragonState.SC);
+                    setState(block, DragonState.SC);
                     dataSent = Constants.BYTES_IN_WORD;
                     return Constants.BUS_UPD_LATENCY; // only gets the update
                 }
                 if (busEvent == BusEvent.BusRd) {//stays in sm
                     dataSent = blockSize;
-                    return Constants.MEMORY_LATENCY; //flush to memory
+                    return interconnect.flush(request.getAddress()); //flush to memory
                 }
                 break;
             case SC:
@@ -200,55 +157,55 @@ public class DragonCache extends Cache {
             case MODIFIED:
                 dataSent = blockSize;
                 if (busEvent == BusEvent.BusRd) {
-                    dragonCacheBlock.setState(DragonState.SM);
-                    if (state == CacheState.WAITING_FOR_MEMORY)
-                        return memoryCycles + (blockSize / Constants.BYTES_IN_WORD) * Constants.BUS_WORD_LATENCY;
+                    setState(block, DragonState.SM);
+                    if (isEvicting())
+                        return evictionCyclesLeft() + (blockSize / Constants.BYTES_IN_WORD) * Constants.BUS_WORD_LATENCY;
                     else
-                        return Constants.MEMORY_LATENCY;//needs to flush
+                        return interconnect.flush(request.getAddress());//needs to flush
                 } else { // someone is writing to this block
-                    dragonCacheBlock.setState(DragonState.SC);
-                    return Constants.MEMORY_LATENCY + Constants.BUS_UPD_LATENCY; //must  writeback + get the update
+                    setState(block, DragonState.SC);
+                    return interconnect.flush(request.getAddress()) + Constants.BUS_UPD_LATENCY; //must  writeback + get the update
                 }
         }
         return 0;
     }
 
-    protected DragonCacheBlock getCacheBlock(int address) {
-        int tag = super.getTag(address);
-        int lineNum = super.getLineNumber(address);
-
-        for (int i = 0; i < associativity; i++) {
-            if ((dragonCacheBlocks[lineNum][i].getTag() == tag)) {
-                return dragonCacheBlocks[lineNum][i];
-            }
-        }
-        return null;
-    }
-
     private void busTransactionOver() {
-        boolean sharedSignal = (busController.checkExistenceInOtherCaches(this.id, currentAddress));
-        DragonCacheBlock cacheBlock = getCacheBlock(currentAddress);
-        if (currentType == CacheInstructionType.READ) {
-            if (cacheBlock.getState() == DragonState.NOT_IN_CACHE) {
-                cacheBlock.setState(sharedSignal ? DragonState.SC : DragonState.EXCLUSIVE);
+        boolean sharedSignal = (interconnect.checkExistenceInOtherCaches(this.id, mshr.getAddress()));
+        int block = findBlock(mshr.getAddress());
+        if (mshr.getType() == CacheInstructionType.READ) {
+            if (getState(block) == DragonState.NOT_IN_CACHE) {
+                setState(block, sharedSignal ? DragonState.SC : DragonState.EXCLUSIVE);
             }
         } else {
-            cacheBlock.setState(sharedSignal ? DragonState.SM : DragonState.MODIFIED);
+            setState(block, sharedSignal ? DragonState.SM : DragonState.MODIFIED);
         }
-        this.state = CacheState.IDLE;
-        this.cpu.wake();
+        accessDone();
     }
 
-    private int getBlockNumber(int address) {
-        int tag = super.getTag(address);
-        int lineNum = super.getLineNumber(address);
+    @Override
+    protected void invalidate(int block) {
+        setState(block, DragonState.NOT_IN_CACHE);
+    }
 
-        for (int i = 0; i < associativity; i++) {
-            if ((dragonCacheBlocks[lineNum][i].getTag() == tag)) {
-                return i;
-            }
-        }
-        return -1;
+    @Override
+    protected boolean isValid(int block) {
+        return DRAGON_STATES[states[block]] != DragonState.NOT_IN_CACHE;
+    }
+
+    // the owner of a shared modified block holds it dirty too
+    @Override
+    protected boolean isDirty(int block) {
+        DragonState blockState = getState(block);
+        return blockState == DragonState.MODIFIED || blockState == DragonState.SM;
+    }
+
+    private DragonState getState(int block) {
+        return block < 0 ? DragonState.NOT_IN_CACHE : DRAGON_STATES[states[block]];
+    }
+
+    private void setState(int block, DragonState dragonState) {
+        setState(block, dragonState.ordinal());
     }
 
 }
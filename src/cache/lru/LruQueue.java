@@ -1,47 +1,47 @@
 package cache.lru;
 
-import java.util.LinkedList;
-import java.util.List;
-
+/**
+ * Blocks of a set ordered from least to most recently used, kept as a circular doubly linked list
+ * over block indices. Index numBlocks is the sentinel: its successor is the least recently used block
+ * and its predecessor the most recently used one.
+ */
 public final class LruQueue {
-    private final int numBlocks;
+    private final int sentinel;
 
-    private final List<Node> blocks;
-    private final Node[] blockToNodeMap;
+    private final int[] previous;
+    private final int[] next;
 
     public LruQueue(int numBlocks) {
-        this.numBlocks = numBlocks;
+        this.sentinel = numBlocks;
 
-        blockToNodeMap = new Node[numBlocks];
-        blocks = new LinkedList<>();
+        previous = new int[numBlocks + 1];
+        next = new int[numBlocks + 1];
 
-        for (int i = 0; i < numBlocks; i++) {
-            Node node = new Node(i);
-            blockToNodeMap[i] = node;
-            blocks.add(node);
+        for (int i = 0; i <= numBlocks; i++) {
+            previous[i] = (i + numBlocks) % (numBlocks + 1);
+            next[i] = (i + 1) % (numBlocks + 1);
         }
     }
 
     public void update(int block) {
-        Node updated = blockToNodeMap[block];
-        blocks.remove(updated);
-        blocks.add(updated);
+        if (next[block] == sentinel) {
+            return;
+        }
+        next[previous[block]] = next[block];
+        previous[next[block]] = previous[block];
+
+        int last = previous[sentinel];
+        next[last] = block;
+        previous[block] = last;
+        next[block] = sentinel;
+        previous[sentinel] = block;
     }
 
     public int blockToEvacuate() {
-        return blocks.get(0).block;
+        return next[sentinel];
     }
 
     public void evacuate() {
         update(blockToEvacuate());
     }
-
-    private static class Node {
-        private final int block;
-
-        private Node(int block) {
-            this.block = block;
-        }
-
-    }
 }
@@ -0,0 +1,130 @@
+package cache.mesif;
+
+import bus.BusEvent;
+import bus.Request;
+import cache.AddressMapper;
+import cache.MesiFamilyCache;
+import cache.prefetch.Prefetcher;
+import cache.replacement.ReplacementPolicy;
+
+import java.util.Arrays;
+
+/**
+ * MESI where exactly one holder of a clean shared block, the one in FORWARD, answers reads of it.
+ * The cache that supplied the block on a read (from E, M or F) becomes or stays the forwarder and the reader
+ * gets a SHARED copy; when no forwarder is left, memory supplies the block and the reader becomes the forwarder.
+ */
+public final class MesifCache extends MesiFamilyCache {
+
+    private static final MesifState[] MESIF_STATES = MesifState.values();
+
+    public MesifCache(int id, AddressMapper addressMapper, int associativity, int numMshrs,
+            int writeBackBufferDepth, Prefetcher prefetcher, ReplacementPolicy replacementPolicy,
+            long replacementSeed) {
+        super(id, addressMapper, associativity, numMshrs, writeBackBufferDepth, prefetcher, replacementPolicy,
+                replacementSeed);
+        Arrays.fill(states, (byte) MesifState.INVALID.ordinal());
+    }
+
+    @Override
+    public String toString() {
+        return "Cache " + id;
+    }
+
+    @Override
+    public boolean canSupply(int address) {
+        MesifState blockState = getState(findBlock(address));
+        return (blockState != MesifState.INVALID && blockState != MesifState.SHARED) || isWriteBackBuffered(address);
+    }
+
+    @Override
+    protected boolean isSuppliedByOtherCache(int address) {
+        return interconnect.checkSupplierInOtherCaches(id, address);
+    }
+
+    @Override
+    protected boolean isPrivate(int block) {
+        MesifState blockState = getState(block);
+        return blockState == MesifState.EXCLUSIVE || blockState == MesifState.MODIFIED;
+    }
+
+    @Override
+    protected boolean isDirty(int block) {
+        return getState(block) == MesifState.MODIFIED;
+    }
+
+    @Override
+    protected void completeRead(int block) {
+        if (interconnect.checkSupplierInOtherCaches(this.id, mshr.getAddress())) {
+            setState(block, MesifState.SHARED);
+        } else if (interconnect.checkExistenceInOtherCaches(this.id, mshr.getAddress())) {
+            setState(block, MesifState.FORWARD);
+        } else {
+            setState(block, MesifState.EXCLUSIVE);
+        }
+    }
+
+    @Override
+    protected void completeWrite(int block) {
+        setState(block, MesifState.MODIFIED);
+    }
+
+    @Override
+    protected int snoop(int block, Request request) {
+
+        BusEvent busEvent = request.getBusEvent();
+
+        switch (getState(block)) {
+            case SHARED:
+                if (busEvent == BusEvent.BusRdX) {
+                    setState(block, MesifState.INVALID);
+                }
+                dataSent = 0;
+                return 0;
+            case FORWARD:
+            case EXCLUSIVE:
+                if (busEvent == BusEvent.BusRd) {
+                    setState(block, MesifState.FORWARD);
+                } else {
+                    setState(block, MesifState.INVALID);
+                }
+                dataSent = blockSize;
+                return blockTransferCycles();
+            case MODIFIED:
+                dataSent = blockSize;
+                if (busEvent == BusEvent.BusRd) {
+                    setState(block, MesifState.FORWARD);
+                    if (isEvicting()) {
+                        return evictionCyclesLeft() + blockTransferCycles();
+                    } else {
+                        return interconnect.flush(request.getAddress());
+                    }
+                } else if (busEvent == BusEvent.BusRdX) {
+                    setState(block, MesifState.INVALID);
+                    return blockTransferCycles();
+                }
+                break;
+            default:
+                break;
+        }
+        return 0;
+    }
+
+    @Override
+    protected void invalidate(int block) {
+        setState(block, MesifState.INVALID);
+    }
+
+    @Override
+    protected boolean isValid(int block) {
+        return MESIF_STATES[states[block]] != MesifState.INVALID;
+    }
+
+    private MesifState getState(int block) {
+        return block < 0 ? MesifState.INVALID : MESIF_STATES[states[block]];
+    }
+
+    private void setState(int block, MesifState mesifState) {
+        setState(block, mesifState.ordinal());
+    }
+}
@@ -0,0 +1,5 @@
+package cache.mesif;
+
+public enum MesifState {
+    MODIFIED, EXCLUSIVE, SHARED, INVALID, FORWARD
+}
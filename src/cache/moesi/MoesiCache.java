@@ -0,0 +1,121 @@
+package cache.moesi;
+
+import bus.BusEvent;
+import bus.Request;
+import cache.AddressMapper;
+import cache.MesiFamilyCache;
+import cache.prefetch.Prefetcher;
+import cache.replacement.ReplacementPolicy;
+
+import java.util.Arrays;
+
+/**
+ * MESI with an Owned state: a modified block read by another cache is handed over cache to cache and stays
+ * dirty in the owner instead of being written back to memory. The owner writes it back when evicting it.
+ */
+public final class MoesiCache extends MesiFamilyCache {
+
+    private static final MoesiState[] MOESI_STATES = MoesiState.values();
+
+    public MoesiCache(int id, AddressMapper addressMapper, int associativity, int numMshrs,
+            int writeBackBufferDepth, Prefetcher prefetcher, ReplacementPolicy replacementPolicy,
+            long replacementSeed) {
+        super(id, addressMapper, associativity, numMshrs, writeBackBufferDepth, prefetcher, replacementPolicy,
+                replacementSeed);
+        Arrays.fill(states, (byte) MoesiState.INVALID.ordinal());
+    }
+
+    @Override
+    public String toString() {
+        return "MOESI " + id;
+    }
+
+    @Override
+    protected boolean isPrivate(int block) {
+        MoesiState blockState = getState(block);
+        return blockState == MoesiState.EXCLUSIVE || blockState == MoesiState.MODIFIED;
+    }
+
+    @Override
+    protected boolean isDirty(int block) {
+        MoesiState blockState = getState(block);
+        return blockState == MoesiState.MODIFIED || blockState == MoesiState.OWNED;
+    }
+
+    @Override
+    protected void completeRead(int block) {
+        if (interconnect.checkExistenceInOtherCaches(this.id, mshr.getAddress())) {
+            setState(block, MoesiState.SHARED);
+        } else {
+            setState(block, MoesiState.EXCLUSIVE);
+        }
+    }
+
+    @Override
+    protected void completeWrite(int block) {
+        setState(block, MoesiState.MODIFIED);
+    }
+
+    @Override
+    protected int snoop(int block, Request request) {
+
+        BusEvent busEvent = request.getBusEvent();
+
+        switch (getState(block)) {
+            case SHARED:
+                if (busEvent == BusEvent.BusRdX) {
+                    setState(block, MoesiState.INVALID);
+                }
+                dataSent = blockSize;
+                return blockTransferCycles();
+            case EXCLUSIVE:
+                if (busEvent == BusEvent.BusRd) {
+                    setState(block, MoesiState.SHARED);
+                } else {
+                    setState(block, MoesiState.INVALID);
+                }
+                dataSent = blockSize;
+                return blockTransferCycles();
+            case OWNED:
+            case MODIFIED:
+                dataSent = blockSize;
+                // once per transaction, on its first phase, and only when the block goes to the requester
+                if (request.senderNeedsData() && !request.isDataRequest()) {
+                    nbDirtyTransfers++;
+                }
+                if (busEvent == BusEvent.BusRd) {
+                    setState(block, MoesiState.OWNED);
+                    if (isEvicting()) {
+                        return evictionCyclesLeft() + blockTransferCycles();
+                    } else {
+                        return blockTransferCycles();
+                    }
+                } else if (busEvent == BusEvent.BusRdX) {
+                    setState(block, MoesiState.INVALID);
+                    return blockTransferCycles();
+                }
+                break;
+            default:
+                break;
+        }
+        return 0;
+    }
+
+    @Override
+    protected void invalidate(int block) {
+        setState(block, MoesiState.INVALID);
+    }
+
+    @Override
+    protected boolean isValid(int block) {
+        return MOESI_STATES[states[block]] != MoesiState.INVALID;
+    }
+
+    private MoesiState getState(int block) {
+        return MOESI_STATES[states[block]];
+    }
+
+    private void setState(int block, MoesiState moesiState) {
+        setState(block, moesiState.ordinal());
+    }
+}
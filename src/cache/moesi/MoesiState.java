@@ -0,0 +1,5 @@
+package cache.moesi;
+
+public enum MoesiState {
+    MODIFIED, OWNED, EXCLUSIVE, SHARED, INVALID
+}
@@ -0,0 +1,28 @@
+package cache.prefetch;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Fetches the degree blocks following the block of every miss. A hit on a prefetched block counts as a miss, so
+ * that a sequential scan keeps the prefetches ahead of it (tagged prefetching).
+ */
+final class NextLinePrefetcher implements Prefetcher {
+
+    private final int blockSize;
+    private final int degree;
+
+    NextLinePrefetcher(int blockSize, int degree) {
+        this.blockSize = blockSize;
+        this.degree = degree;
+    }
+
+    @Override
+    public void access(int address, boolean miss, IntConsumer prefetch) {
+        if (miss) {
+            long block = Integer.toUnsignedLong(address) / blockSize;
+            for (int i = 1; i <= degree; i++) {
+                prefetch.accept((int) ((block + i) * blockSize));
+            }
+        }
+    }
+}
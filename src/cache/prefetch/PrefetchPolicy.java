@@ -0,0 +1,23 @@
+package cache.prefetch;
+
+public enum PrefetchPolicy {
+    NONE, NEXT_LINE, STRIDE, STREAM;
+
+    /**
+     * The prefetcher of one cache, null for no prefetching.
+     *
+     * @param degree number of blocks fetched ahead of the accesses
+     */
+    public Prefetcher createPrefetcher(int blockSize, int degree) {
+        switch (this) {
+            case NEXT_LINE:
+                return new NextLinePrefetcher(blockSize, degree);
+            case STRIDE:
+                return new StridePrefetcher(blockSize, degree);
+            case STREAM:
+                return new StreamPrefetcher(blockSize, degree);
+            default:
+                return null;
+        }
+    }
+}
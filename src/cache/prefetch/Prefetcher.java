@@ -0,0 +1,18 @@
+package cache.prefetch;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Predicts the blocks a core is about to access from the accesses of its cache, one prefetcher per cache.
+ * The cache fetches the predicted blocks it does not hold yet, with a lower priority on the bus than its misses.
+ */
+public interface Prefetcher {
+
+    /**
+     * Called on every access of the cpu, hit or miss.
+     *
+     * @param miss     whether the access missed, or would have without an earlier prefetch
+     * @param prefetch called with an address of every block to prefetch
+     */
+    void access(int address, boolean miss, IntConsumer prefetch);
+}
@@ -0,0 +1,58 @@
+package cache.prefetch;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Stream buffers: a miss outside of every stream allocates the least recently used one, which fetches the degree
+ * blocks following the miss. An access to one of the blocks a stream fetched moves the stream on, so that it stays
+ * degree blocks ahead of the accesses. The blocks are fetched into the cache rather than into buffers of their own.
+ */
+final class StreamPrefetcher implements Prefetcher {
+
+    private static final int STREAMS = 4;
+
+    private final int blockSize;
+    private final int degree;
+    private final long[] heads;
+    private final long[] lastUses;
+    private long accesses;
+
+    StreamPrefetcher(int blockSize, int degree) {
+        this.blockSize = blockSize;
+        this.degree = degree;
+        this.heads = new long[STREAMS];
+        this.lastUses = new long[STREAMS];
+        Arrays.fill(heads, -1);
+    }
+
+    @Override
+    public void access(int address, boolean miss, IntConsumer prefetch) {
+        accesses++;
+        long block = Integer.toUnsignedLong(address) / blockSize;
+        int stream = -1;
+        for (int i = 0; i < STREAMS; i++) {
+            // the head is the first block fetched and not accessed yet, the stream fetched the degree blocks from it
+            if (heads[i] >= 0 && block >= heads[i] && block < heads[i] + degree) {
+                stream = i;
+            }
+        }
+        if (stream < 0) {
+            if (!miss) {
+                return;
+            }
+            stream = 0;
+            for (int i = 1; i < STREAMS; i++) {
+                if (lastUses[i] < lastUses[stream]) {
+                    stream = i;
+                }
+            }
+        }
+
+        heads[stream] = block + 1;
+        lastUses[stream] = accesses;
+        for (int i = 1; i <= degree; i++) {
+            prefetch.accept((int) ((block + i) * blockSize));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package cache.prefetch;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Detects constant strides between the blocks accessed in a region of memory, without the pc of the accesses.
+ * A direct mapped table keeps, per region, the last block accessed and the last stride seen. Once the same stride
+ * was seen twice in a row the degree blocks following the access along the stride are fetched.
+ * Accesses to the last block accessed leave the entry unchanged, so that strides shorter than a block are
+ * followed block by block.
+ */
+final class StridePrefetcher implements Prefetcher {
+
+    private static final int TABLE_SIZE = 16;
+    private static final int REGION_SIZE = 4096;
+
+    private final int blockSize;
+    private final int degree;
+    private final long[] regions;
+    private final long[] lastBlocks;
+    private final long[] strides;
+    private final boolean[] confirmed;
+
+    StridePrefetcher(int blockSize, int degree) {
+        this.blockSize = blockSize;
+        this.degree = degree;
+        this.regions = new long[TABLE_SIZE];
+        this.lastBlocks = new long[TABLE_SIZE];
+        this.strides = new long[TABLE_SIZE];
+        this.confirmed = new boolean[TABLE_SIZE];
+        Arrays.fill(regions, -1);
+    }
+
+    @Override
+    public void access(int address, boolean miss, IntConsumer prefetch) {
+        long block = Integer.toUnsignedLong(address) / blockSize;
+        long region = Integer.toUnsignedLong(address) / REGION_SIZE;
+        int entry = (int) (region % TABLE_SIZE);
+        if (regions[entry] != region) {
+            regions[entry] = region;
+            lastBlocks[entry] = block;
+            strides[entry] = 0;
+            confirmed[entry] = false;
+            return;
+        }
+
+        long stride = block - lastBlocks[entry];
+        if (stride == 0) {
+            return;
+        }
+        confirmed[entry] = stride == strides[entry];
+        strides[entry] = stride;
+        lastBlocks[entry] = block;
+        if (confirmed[entry]) {
+            for (int i = 1; i <= degree; i++) {
+                long target = block + i * stride;
+                if (target >= 0) {
+                    prefetch.accept((int) (target * blockSize));
+                }
+            }
+        }
+    }
+}
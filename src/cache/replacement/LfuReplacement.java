@@ -0,0 +1,45 @@
+package cache.replacement;
+
+/**
+ * Evicts the least frequently used block of the set, the one in the lowest way among equals. Counts start at 1
+ * when a block is put in the set. When a count saturates all the counts of its set are halved, so that blocks
+ * used a lot long ago end up evicted.
+ */
+final class LfuReplacement implements Replacement {
+
+    private final int associativity;
+    private final byte[] counts;
+
+    LfuReplacement(int numSets, int associativity) {
+        this.associativity = associativity;
+        this.counts = new byte[numSets * associativity];
+    }
+
+    @Override
+    public void access(int set, int way) {
+        int first = set * associativity;
+        if (counts[first + way] == Byte.MAX_VALUE) {
+            for (int i = first; i < first + associativity; i++) {
+                counts[i] >>= 1;
+            }
+        }
+        counts[first + way]++;
+    }
+
+    @Override
+    public int victim(int set) {
+        int first = set * associativity;
+        int victim = 0;
+        for (int way = 1; way < associativity; way++) {
+            if (counts[first + way] < counts[first + victim]) {
+                victim = way;
+            }
+        }
+        return victim;
+    }
+
+    @Override
+    public void fill(int set, int way) {
+        counts[set * associativity + way] = 1;
+    }
+}
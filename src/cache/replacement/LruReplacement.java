@@ -0,0 +1,33 @@
+package cache.replacement;
+
+import cache.lru.LruQueue;
+
+/**
+ * Evicts the least recently used block of the set.
+ */
+final class LruReplacement implements Replacement {
+
+    private final LruQueue[] lruQueues;
+
+    LruReplacement(int numSets, int associativity) {
+        this.lruQueues = new LruQueue[numSets];
+        for (int i = 0; i < numSets; i++) {
+            lruQueues[i] = new LruQueue(associativity);
+        }
+    }
+
+    @Override
+    public void access(int set, int way) {
+        lruQueues[set].update(way);
+    }
+
+    @Override
+    public int victim(int set) {
+        return lruQueues[set].blockToEvacuate();
+    }
+
+    @Override
+    public void fill(int set, int way) {
+        lruQueues[set].update(way);
+    }
+}
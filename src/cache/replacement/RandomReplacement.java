@@ -0,0 +1,39 @@
+package cache.replacement;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Evicts a block drawn uniformly from a seeded generator. The victim drawn for a set is kept until a block is put
+ * in the set, so that a miss waiting for the write back of its victim evicts that one.
+ */
+final class RandomReplacement implements Replacement {
+
+    private final int associativity;
+    private final int[] victims;
+    private final Random random;
+
+    RandomReplacement(int numSets, int associativity, long seed) {
+        this.associativity = associativity;
+        this.victims = new int[numSets];
+        this.random = new Random(seed);
+        Arrays.fill(victims, -1);
+    }
+
+    @Override
+    public void access(int set, int way) {
+    }
+
+    @Override
+    public int victim(int set) {
+        if (victims[set] < 0) {
+            victims[set] = random.nextInt(associativity);
+        }
+        return victims[set];
+    }
+
+    @Override
+    public void fill(int set, int way) {
+        victims[set] = -1;
+    }
+}
@@ -0,0 +1,23 @@
+package cache.replacement;
+
+/**
+ * Chooses the block of a set to evict, from the accesses to the blocks of the set. Ways are numbered from 0 to
+ * associativity - 1 in every set.
+ */
+public interface Replacement {
+
+    /**
+     * The block of the way was hit.
+     */
+    void access(int set, int way);
+
+    /**
+     * Way of the block to evict from the set.
+     */
+    int victim(int set);
+
+    /**
+     * A new block was put in the way, the one victim returned.
+     */
+    void fill(int set, int way);
+}
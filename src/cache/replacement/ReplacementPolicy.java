@@ -0,0 +1,35 @@
+package cache.replacement;
+
+public enum ReplacementPolicy {
+    LRU, PLRU, SRRIP, BRRIP, RANDOM, LFU;
+
+    /**
+     * Whether the policy works with sets of the associativity: tree PLRU needs a power of two up to 64.
+     */
+    public boolean supports(int associativity) {
+        return this != PLRU || (Integer.bitCount(associativity) == 1 && associativity <= Long.SIZE);
+    }
+
+    /**
+     * The seed is only used by the random policy, caches with the same seed evict the same blocks.
+     */
+    public Replacement createReplacement(int numSets, int associativity, long seed) {
+        if (!supports(associativity)) {
+            throw new IllegalArgumentException(this + " does not support an associativity of " + associativity);
+        }
+        switch (this) {
+            case PLRU:
+                return new TreePlruReplacement(numSets, associativity);
+            case SRRIP:
+                return new RripReplacement(numSets, associativity, false);
+            case BRRIP:
+                return new RripReplacement(numSets, associativity, true);
+            case RANDOM:
+                return new RandomReplacement(numSets, associativity, seed);
+            case LFU:
+                return new LfuReplacement(numSets, associativity);
+            default:
+                return new LruReplacement(numSets, associativity);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package cache.replacement;
+
+import java.util.Arrays;
+
+/**
+ * Re-reference interval prediction with 2 bits per block: a hit predicts a near re-reference (0), the victim is
+ * the first block predicted distant (3), all the blocks of the set age until one is. Static RRIP predicts a long
+ * interval (2) for new blocks, bimodal RRIP a distant one but for one new block in BIMODAL_PERIOD, so that blocks
+ * used once do not flush the set. The predictions of a set are packed in longs, 32 blocks per long.
+ */
+final class RripReplacement implements Replacement {
+
+    private static final int DISTANT = 3;
+    private static final int LONG = 2;
+    private static final int BLOCKS_PER_WORD = Long.SIZE / 2;
+    private static final int BIMODAL_PERIOD = 32;
+
+    private final int associativity;
+    private final int wordsPerSet;
+    private final boolean bimodal;
+    private final long[] predictions;
+    private int fills;
+
+    RripReplacement(int numSets, int associativity, boolean bimodal) {
+        this.associativity = associativity;
+        this.wordsPerSet = (associativity + BLOCKS_PER_WORD - 1) / BLOCKS_PER_WORD;
+        this.bimodal = bimodal;
+        this.predictions = new long[numSets * wordsPerSet];
+        this.fills = 0;
+        // all blocks start distant
+        Arrays.fill(predictions, -1L);
+    }
+
+    @Override
+    public void access(int set, int way) {
+        setPrediction(set, way, 0);
+    }
+
+    @Override
+    public int victim(int set) {
+        while (true) {
+            for (int way = 0; way < associativity; way++) {
+                if (getPrediction(set, way) == DISTANT) {
+                    return way;
+                }
+            }
+            for (int way = 0; way < associativity; way++) {
+                setPrediction(set, way, getPrediction(set, way) + 1);
+            }
+        }
+    }
+
+    @Override
+    public void fill(int set, int way) {
+        if (bimodal) {
+            fills = (fills + 1) % BIMODAL_PERIOD;
+            setPrediction(set, way, fills == 0 ? LONG : DISTANT);
+        } else {
+            setPrediction(set, way, LONG);
+        }
+    }
+
+    private int getPrediction(int set, int way) {
+        long word = predictions[set * wordsPerSet + way / BLOCKS_PER_WORD];
+        return (int) (word >>> (2 * (way % BLOCKS_PER_WORD))) & DISTANT;
+    }
+
+    private void setPrediction(int set, int way, int prediction) {
+        int index = set * wordsPerSet + way / BLOCKS_PER_WORD;
+        int shift = 2 * (way % BLOCKS_PER_WORD);
+        predictions[index] = (predictions[index] & ~((long) DISTANT << shift)) | ((long) prediction << shift);
+    }
+}
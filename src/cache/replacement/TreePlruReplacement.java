@@ -0,0 +1,47 @@
+package cache.replacement;
+
+/**
+ * Tree pseudo-LRU: the ways are the leaves of a binary tree whose associativity - 1 nodes each point to the half
+ * to evict from, away from the last access below them. The nodes of a set are the bits of a long, node n having
+ * children 2n and 2n + 1 from the root 1.
+ */
+final class TreePlruReplacement implements Replacement {
+
+    private final int associativity;
+    private final int levels;
+    private final long[] trees;
+
+    TreePlruReplacement(int numSets, int associativity) {
+        this.associativity = associativity;
+        this.levels = Integer.numberOfTrailingZeros(associativity);
+        this.trees = new long[numSets];
+    }
+
+    @Override
+    public void access(int set, int way) {
+        long tree = trees[set];
+        int node = 1;
+        for (int level = levels - 1; level >= 0; level--) {
+            int right = (way >>> level) & 1;
+            // points to the other half
+            tree = right == 1 ? tree & ~(1L << node) : tree | (1L << node);
+            node = 2 * node + right;
+        }
+        trees[set] = tree;
+    }
+
+    @Override
+    public int victim(int set) {
+        long tree = trees[set];
+        int node = 1;
+        while (node < associativity) {
+            node = 2 * node + (int) ((tree >>> node) & 1);
+        }
+        return node - associativity;
+    }
+
+    @Override
+    public void fill(int set, int way) {
+        access(set, way);
+    }
+}
@@ -1,7 +1,24 @@
 package common;
 
 public interface Clocked {
+
+    int NO_EVENT = Integer.MAX_VALUE;
+
     default void runForOneCycle() {
     }
 
+    /**
+     * Number of calls to runForOneCycle until this component changes state on its own,
+     * NO_EVENT if it only reacts to other components.
+     */
+    default int cyclesUntilNextEvent() {
+        return 1;
+    }
+
+    /**
+     * Advances the component by the given number of cycles, none of which may contain an event.
+     */
+    default void skipCycles(int cycles) {
+    }
+
 }
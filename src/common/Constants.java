@@ -6,7 +6,21 @@ public interface Constants {
     int BUS_WORD_LATENCY = 2;
     int L1_CACHE_EVICTION_LATENCY = 100;
     int NUM_CPUS = 4;
+    int NUM_BUSES = 1;
     int BUS_MESSAGE_CYCLES = 1;
     int BYTES_IN_WORD = 4;
     int BUS_UPD_LATENCY = 2;
+    int SPLIT_BUS_TRANSACTIONS = 8;
+    int NETWORK_HOP_LATENCY = 5;
+    int PREFETCH_MSHRS = 4;
+    int PREFETCH_DEGREE = 2;
+    int LLC_ASSOCIATIVITY = 16;
+    int LLC_BLOCK_SIZE = 64;
+    int LLC_LATENCY = 20;
+    int DRAM_CHANNELS = 1;
+    int DRAM_BANKS = 8;
+    int DRAM_ROW_SIZE = 2048;
+    int DRAM_ROW_HIT_LATENCY = 40;
+    int DRAM_ROW_MISS_LATENCY = 70;
+    int DRAM_ROW_CONFLICT_LATENCY = 100;
 }
\ No newline at end of file
@@ -1,18 +1,20 @@
 package cpu;
 
 import cache.Cache;
-import cache.instruction.CacheInstruction;
 import cache.instruction.CacheInstructionType;
 import common.Clocked;
-import instruction.Instruction;
+import instruction.InstructionCursor;
 import instruction.InstructionType;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
+/**
+ * A blocking cpu waits for every access to complete. A non-blocking one keeps going after a load, until its cache
+ * cannot accept the next one, and waits for all the loads in progress to complete before a store.
+ * With a store buffer, stores retire as soon as they are in the buffer, which is drained to the cache one store at
+ * a time when the cache can accept it. Loads of an address in the buffer are served from it.
+ */
 public final class Cpu implements Clocked {
 
-    private Queue<Instruction> instructions;
+    private InstructionCursor instructions;
     private CpuState state;
     private long cycleCount;
     private int cacheInstructionCount;
@@ -21,15 +23,29 @@ public final class Cpu implements Clocked {
     private int totalIdleCycles;
     private int numLoad;
     private int numStore;
+    private InstructionType stalledType;
+    private int stalledField;
+    private boolean draining;
+    private int forwardedLoads;
+    private int storeBufferStallCycles;
     private final Cache cache;
+    private final boolean nonBlocking;
+    private final StoreBuffer storeBuffer;
 
-    public Cpu(Cache cache) {
+    /**
+     * @param storeBufferDepth number of stores the store buffer holds, 0 for no store buffer
+     */
+    public Cpu(Cache cache, boolean nonBlocking, int storeBufferDepth) {
 
         this.cache = cache;
+        this.nonBlocking = nonBlocking;
+        this.storeBuffer = storeBufferDepth > 0 ? new StoreBuffer(storeBufferDepth) : null;
+        this.draining = false;
+        this.stalledType = null;
         this.cycleCount = 0;
         this.cacheInstructionCount = 0;
         this.state = CpuState.IDLE;
-        this.instructions = new LinkedList<>();
+        this.instructions = null;
         this.executingCyclesLeft = 0;
 
         this.totalComputingCycles = 0;
@@ -43,16 +59,27 @@ public final class Cpu implements Clocked {
 
         switch (state) {
             case IDLE:
-                Instruction instruction = instructions.poll();
-                if (instruction != null) {
-                    executeInstruction(instruction);
-                    if (instruction.getType() == InstructionType.READ || instruction.getType() == InstructionType.WRITE) {
+                if (stalledType != null) {
+                    InstructionType type = stalledType;
+                    stalledType = null;
+                    executeInstruction(type, stalledField);
+                } else if (instructions.hasNext()) {
+                    instructions.next();
+                    InstructionType type = instructions.getType();
+                    executeInstruction(type, instructions.getSecondField());
+                    if (type == InstructionType.READ || type == InstructionType.WRITE) {
                         cacheInstructionCount++;
                     }
+                } else if (!finishedExecution()) {
+                    // the last accesses are in progress
+                    totalIdleCycles++;
                 }
                 break;
             case BLOCKING:
                 totalIdleCycles++;
+                if (isStalledOnStoreBuffer()) {
+                    storeBufferStallCycles++;
+                }
                 break;
             case EXECUTING:
                 executingCyclesLeft--;
@@ -60,17 +87,91 @@ public final class Cpu implements Clocked {
                     setState(CpuState.IDLE);
                 }
         }
+        if (canDrain()) {
+            draining = true;
+            cache.ask(CacheInstructionType.WRITE, storeBuffer.peek());
+        }
         if (!finishedExecution())
             cycleCount++;
     }
 
-    public void setInstructions(Queue<Instruction> instructions) {
-        this.instructions = new LinkedList<>(instructions);
+    @Override
+    public int cyclesUntilNextEvent() {
+        if (canDrain()) {
+            return 1;
+        }
+        switch (state) {
+            case EXECUTING:
+                return executingCyclesLeft;
+            case BLOCKING:
+                return NO_EVENT;
+            default:
+                return stalledType == null && !instructions.hasNext() ? NO_EVENT : 1;
+        }
+    }
+
+    @Override
+    public void skipCycles(int cycles) {
+        switch (state) {
+            case IDLE:
+                if (!finishedExecution()) {
+                    totalIdleCycles += cycles;
+                }
+                break;
+            case BLOCKING:
+                totalIdleCycles += cycles;
+                if (isStalledOnStoreBuffer()) {
+                    storeBufferStallCycles += cycles;
+                }
+                break;
+            case EXECUTING:
+                executingCyclesLeft -= cycles;
+                break;
+        }
+        if (!finishedExecution())
+            cycleCount += cycles;
+    }
+
+    public void setInstructions(InstructionCursor instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * Called by the cache when an access completes, a non-blocking cpu or one with a store buffer may not be
+     * waiting for it.
+     */
+    public void wake(CacheInstructionType type) {
+        if (storeBuffer != null && type == CacheInstructionType.WRITE) {
+            storeBuffer.poll();
+            draining = false;
+        } else {
+            assert (nonBlocking || this.state == CpuState.BLOCKING);
+        }
+        if (this.state == CpuState.BLOCKING) {
+            setState(CpuState.IDLE);
+        }
     }
 
-    public void wake() {
-        assert (this.state == CpuState.BLOCKING);
-        setState(CpuState.IDLE);
+    /**
+     * Called by the cache when a prefetch completes, an access stalled on the block being prefetched can go on.
+     */
+    public void prefetchDone() {
+        if (this.state == CpuState.BLOCKING && stalledType != null) {
+            setState(CpuState.IDLE);
+        }
+    }
+
+    /**
+     * Whether the cpu waits for the cache to accept an access to the block holding the address: the load or store it
+     * stalled on, or the next store of its store buffer.
+     */
+    public boolean isWaitingFor(int address) {
+        long block = cache.getBlockId(address);
+        if (stalledType != null && !isStalledOnStoreBuffer() && cache.getBlockId(stalledField) == block) {
+            return true;
+        }
+        return storeBuffer != null && !draining && !storeBuffer.isEmpty()
+                && cache.getBlockId(storeBuffer.peek()) == block;
     }
 
     public long getCycleCount() {
@@ -97,30 +198,66 @@ public final class Cpu implements Clocked {
         return numStore;
     }
 
+    public boolean hasStoreBuffer() {
+        return storeBuffer != null;
+    }
+
+    public int getForwardedLoads() {
+        return forwardedLoads;
+    }
+
+    /**
+     * Cycles a store waited for room in the full store buffer.
+     */
+    public int getStoreBufferStallCycles() {
+        return storeBufferStallCycles;
+    }
+
     public boolean finishedExecution() {
-        return this.instructions.isEmpty() && this.state == CpuState.IDLE;
+        return !this.instructions.hasNext() && this.state == CpuState.IDLE && stalledType == null && cache.isIdle()
+                && (storeBuffer == null || storeBuffer.isEmpty());
     }
 
-    private void executeInstruction(Instruction instruction) {
-        switch (instruction.getType()) {
+    private void executeInstruction(InstructionType type, int secondField) {
+        switch (type) {
             case READ: {
+                if (storeBuffer != null && storeBuffer.contains(secondField)) {
+                    numLoad++;
+                    forwardedLoads++;
+                    break;
+                }
+                if (!cache.canAccept(secondField)) {
+                    stall(type, secondField);
+                    break;
+                }
                 numLoad++;
-                CacheInstruction cacheInstruction = new CacheInstruction(CacheInstructionType.READ,
-                        instruction.getSecondField());
-                cache.ask(cacheInstruction);
-                setState(CpuState.BLOCKING);
+                cache.ask(CacheInstructionType.READ, secondField);
+                if (!nonBlocking) {
+                    setState(CpuState.BLOCKING);
+                }
                 break;
             }
             case WRITE: {
+                if (storeBuffer != null) {
+                    if (storeBuffer.isFull()) {
+                        stall(type, secondField);
+                    } else {
+                        numStore++;
+                        storeBuffer.add(secondField);
+                    }
+                    break;
+                }
+                if ((nonBlocking && !cache.isIdle()) || !cache.canAccept(secondField)) {
+                    stall(type, secondField);
+                    break;
+                }
                 numStore++;
-                CacheInstruction cacheInstruction = new CacheInstruction(CacheInstructionType.WRITE,
-                        instruction.getSecondField());
-                cache.ask(cacheInstruction);
+                cache.ask(CacheInstructionType.WRITE, secondField);
                 setState(CpuState.BLOCKING);
                 break;
             }
             case OTHER: {
-                this.executingCyclesLeft = instruction.getSecondField();
+                this.executingCyclesLeft = secondField;
                 totalComputingCycles += executingCyclesLeft;
                 setState(CpuState.EXECUTING);
                 break;
@@ -128,6 +265,21 @@ public final class Cpu implements Clocked {
         }
     }
 
+    // the instruction is executed again once the cache wakes the cpu up
+    private void stall(InstructionType type, int secondField) {
+        this.stalledType = type;
+        this.stalledField = secondField;
+        setState(CpuState.BLOCKING);
+    }
+
+    private boolean canDrain() {
+        return storeBuffer != null && !draining && !storeBuffer.isEmpty() && cache.canAccept(storeBuffer.peek());
+    }
+
+    private boolean isStalledOnStoreBuffer() {
+        return storeBuffer != null && stalledType == InstructionType.WRITE;
+    }
+
     private void setState(CpuState state) {
         this.state = state;
     }
@@ -0,0 +1,48 @@
+package cpu;
+
+/**
+ * FIFO of the addresses of the stores retired by the cpu and not yet written to its cache.
+ */
+final class StoreBuffer {
+
+    private final int[] addresses;
+    private int head;
+    private int size;
+
+    StoreBuffer(int depth) {
+        this.addresses = new int[depth];
+        this.head = 0;
+        this.size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isFull() {
+        return size == addresses.length;
+    }
+
+    void add(int address) {
+        addresses[(head + size) % addresses.length] = address;
+        size++;
+    }
+
+    int peek() {
+        return addresses[head];
+    }
+
+    void poll() {
+        head = (head + 1) % addresses.length;
+        size--;
+    }
+
+    boolean contains(int address) {
+        for (int i = 0; i < size; i++) {
+            if (addresses[(head + i) % addresses.length] == address) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
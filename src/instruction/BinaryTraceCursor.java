@@ -0,0 +1,82 @@
+package instruction;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads binary trace records straight out of a memory mapped file.
+ */
+final class BinaryTraceCursor implements InstructionCursor {
+
+    private static final InstructionType[] TYPES = InstructionType.values();
+
+    private final MappedByteBuffer buffer;
+    private final boolean delta;
+    private int lastAddress;
+    private InstructionType type;
+    private int secondField;
+
+    BinaryTraceCursor(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to be mapped");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < BinaryTraceFormat.HEADER_SIZE || buffer.getInt() != BinaryTraceFormat.MAGIC) {
+            throw new IOException(path + " is not a binary trace");
+        }
+        byte version = buffer.get();
+        if (version != BinaryTraceFormat.VERSION) {
+            throw new IOException("Unsupported binary trace version " + version + " in " + path);
+        }
+        this.delta = (buffer.get() & BinaryTraceFormat.FLAG_DELTA) != 0;
+        this.lastAddress = 0;
+        buffer.position(BinaryTraceFormat.HEADER_SIZE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return buffer.hasRemaining();
+    }
+
+    @Override
+    public void next() {
+        int first = buffer.get() & 0xff;
+        type = TYPES[first >>> BinaryTraceFormat.TYPE_SHIFT];
+        if (!delta) {
+            secondField = buffer.getInt();
+            return;
+        }
+
+        int value = first & (BinaryTraceFormat.FIRST_BYTE_CONTINUATION - 1);
+        int shift = BinaryTraceFormat.FIRST_BYTE_PAYLOAD_BITS;
+        boolean more = (first & BinaryTraceFormat.FIRST_BYTE_CONTINUATION) != 0;
+        while (more) {
+            int b = buffer.get() & 0xff;
+            value |= (b & (BinaryTraceFormat.CONTINUATION - 1)) << shift;
+            shift += BinaryTraceFormat.PAYLOAD_BITS;
+            more = (b & BinaryTraceFormat.CONTINUATION) != 0;
+        }
+
+        if (type == InstructionType.OTHER) {
+            secondField = value;
+        } else {
+            lastAddress += (value >>> 1) ^ -(value & 1);
+            secondField = lastAddress;
+        }
+    }
+
+    @Override
+    public InstructionType getType() {
+        return type;
+    }
+
+    @Override
+    public int getSecondField() {
+        return secondField;
+    }
+}
@@ -0,0 +1,21 @@
+package instruction;
+
+/**
+ * Layout of binary traces: an 8 byte header (magic, version, flags, 2 reserved bytes) followed by one record
+ * per instruction. The two high bits of the first record byte hold the InstructionType.
+ * Fixed records follow them with the 32 bit second field. Delta records store the rest of the first byte
+ * and the following bytes as a varint: 5 payload bits and a continuation bit in the first byte, 7 payload
+ * bits and a continuation bit in the others. Loads and stores encode the zigzagged difference with the
+ * previous memory address, compute instructions their cycle count.
+ */
+interface BinaryTraceFormat {
+    int MAGIC = 0x43535452; // "CSTR"
+    byte VERSION = 1;
+    byte FLAG_DELTA = 1;
+    int HEADER_SIZE = 8;
+    int TYPE_SHIFT = 6;
+    int FIRST_BYTE_PAYLOAD_BITS = 5;
+    int FIRST_BYTE_CONTINUATION = 1 << FIRST_BYTE_PAYLOAD_BITS;
+    int PAYLOAD_BITS = 7;
+    int CONTINUATION = 1 << PAYLOAD_BITS;
+}
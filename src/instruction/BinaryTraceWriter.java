@@ -0,0 +1,75 @@
+package instruction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public final class BinaryTraceWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RECORD_SIZE = 5;
+
+    public static void convert(String textPath, String binaryPath, boolean delta) throws IOException {
+        Path input = Paths.get(textPath);
+        if (InstructionParser.isBinaryTrace(input)) {
+            throw new IOException(textPath + " is already a binary trace");
+        }
+        InstructionCursor cursor = new MappedTraceCursor(input);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(binaryPath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(BinaryTraceFormat.MAGIC);
+            buffer.put(BinaryTraceFormat.VERSION);
+            buffer.put(delta ? BinaryTraceFormat.FLAG_DELTA : 0);
+            buffer.putShort((short) 0);
+
+            int lastAddress = 0;
+            while (cursor.hasNext()) {
+                cursor.next();
+                if (buffer.remaining() < MAX_RECORD_SIZE) {
+                    flush(channel, buffer);
+                }
+                int type = cursor.getType().ordinal() << BinaryTraceFormat.TYPE_SHIFT;
+                int value = cursor.getSecondField();
+                if (!delta) {
+                    buffer.put((byte) type);
+                    buffer.putInt(value);
+                    continue;
+                }
+
+                if (cursor.getType() != InstructionType.OTHER) {
+                    int difference = value - lastAddress;
+                    lastAddress = value;
+                    value = (difference << 1) ^ (difference >> 31);
+                }
+                int first = type | (value & (BinaryTraceFormat.FIRST_BYTE_CONTINUATION - 1));
+                value >>>= BinaryTraceFormat.FIRST_BYTE_PAYLOAD_BITS;
+                if (value != 0) {
+                    first |= BinaryTraceFormat.FIRST_BYTE_CONTINUATION;
+                }
+                buffer.put((byte) first);
+                while (value != 0) {
+                    int b = value & (BinaryTraceFormat.CONTINUATION - 1);
+                    value >>>= BinaryTraceFormat.PAYLOAD_BITS;
+                    buffer.put((byte) (value != 0 ? b | BinaryTraceFormat.CONTINUATION : b));
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private BinaryTraceWriter() {
+    }
+}
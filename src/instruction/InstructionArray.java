@@ -0,0 +1,69 @@
+package instruction;
+
+import java.util.Arrays;
+
+/**
+ * A whole trace held in memory, one long per instruction: the InstructionType ordinal in the upper half
+ * and the second field in the lower half. Cursors over the same array are independent, so a parsed trace
+ * can be replayed any number of times.
+ */
+public final class InstructionArray {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final InstructionType[] TYPES = InstructionType.values();
+
+    private final long[] instructions;
+    private final int size;
+
+    private InstructionArray(long[] instructions, int size) {
+        this.instructions = instructions;
+        this.size = size;
+    }
+
+    public static InstructionArray readAll(InstructionCursor cursor) {
+        long[] instructions = new long[INITIAL_CAPACITY];
+        int size = 0;
+        while (cursor.hasNext()) {
+            cursor.next();
+            if (size == instructions.length) {
+                instructions = Arrays.copyOf(instructions, size * 2);
+            }
+            instructions[size++] = ((long) cursor.getType().ordinal() << Integer.SIZE)
+                    | Integer.toUnsignedLong(cursor.getSecondField());
+        }
+        return new InstructionArray(Arrays.copyOf(instructions, size), size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public InstructionCursor cursor() {
+        return new Cursor();
+    }
+
+    private final class Cursor implements InstructionCursor {
+
+        private int position = -1;
+
+        @Override
+        public boolean hasNext() {
+            return position + 1 < size;
+        }
+
+        @Override
+        public void next() {
+            position++;
+        }
+
+        @Override
+        public InstructionType getType() {
+            return TYPES[(int) (instructions[position] >>> Integer.SIZE)];
+        }
+
+        @Override
+        public int getSecondField() {
+            return (int) instructions[position];
+        }
+    }
+}
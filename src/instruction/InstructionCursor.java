@@ -0,0 +1,15 @@
+package instruction;
+
+/**
+ * Pull-based view over a trace, the current instruction is only valid until the next call to next().
+ */
+public interface InstructionCursor {
+
+    boolean hasNext();
+
+    void next();
+
+    InstructionType getType();
+
+    int getSecondField();
+}
@@ -1,37 +1,69 @@
 package instruction;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.Scanner;
 
 public final class InstructionParser {
 
-    private final static int HEX_RADIX = 16;
+    public static InstructionCursor openTrace(String filePath) {
+        try {
+            Path path = Paths.get(filePath);
+            return isBinaryTrace(path) ? new BinaryTraceCursor(path) : new MappedTraceCursor(path);
+        } catch (NoSuchFileException e) {
+            System.out.println("File " + filePath + " not found");
+        } catch (IOException e) {
+            System.out.println("File " + filePath + " could not be read");
+        }
+        return new EmptyCursor();
+    }
 
     public static Queue<Instruction> parseInstructions(String filePath) {
         Queue<Instruction> instructions = new LinkedList<>();
-        int maxInstr = 800;
-        try (Scanner scanner = new Scanner(new File(filePath))) {
-            while (scanner.hasNextInt()) {
-                InstructionType type = InstructionType.values()[scanner.nextInt()];
-                int otherField = Integer.parseUnsignedInt(scanner.next().substring(2), HEX_RADIX);
-                Instruction instruction = new Instruction(type, otherField);
-                instructions.add(instruction);
-                maxInstr--;
-            }
-        } catch (FileNotFoundException e) {
-            System.out.println("File " + filePath + " not found");
-        } catch (IllegalStateException e) {
-            System.out.println("Queue maximum capacity reached");
+        InstructionCursor cursor = openTrace(filePath);
+        while (cursor.hasNext()) {
+            cursor.next();
+            instructions.add(new Instruction(cursor.getType(), cursor.getSecondField()));
         }
-
         return instructions;
+    }
 
+    static boolean isBinaryTrace(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(magic) == Integer.BYTES && magic.getInt(0) == BinaryTraceFormat.MAGIC;
+        }
     }
 
     private InstructionParser() {
     }
-}
 
+    private static final class EmptyCursor implements InstructionCursor {
+
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public void next() {
+            throw new IllegalStateException("Empty trace");
+        }
+
+        @Override
+        public InstructionType getType() {
+            throw new IllegalStateException("Empty trace");
+        }
+
+        @Override
+        public int getSecondField() {
+            throw new IllegalStateException("Empty trace");
+        }
+    }
+}
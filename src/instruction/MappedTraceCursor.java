@@ -0,0 +1,96 @@
+package instruction;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses a "type 0xhex" text trace directly out of a memory mapped file, one line at a time.
+ * Files larger than the mapping window are remapped as the cursor moves forward.
+ */
+final class MappedTraceCursor implements InstructionCursor {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+    private static final int MAX_LINE_LENGTH = 64;
+    private static final InstructionType[] TYPES = InstructionType.values();
+
+    private final Path path;
+    private final long fileSize;
+    private long windowStart;
+    private MappedByteBuffer buffer;
+    private InstructionType type;
+    private int secondField;
+
+    MappedTraceCursor(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.fileSize = channel.size();
+            this.windowStart = 0;
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, WINDOW_SIZE));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        skipWhitespace();
+        return buffer.hasRemaining() && isDigit(buffer.get(buffer.position()));
+    }
+
+    @Override
+    public void next() {
+        skipWhitespace();
+        int typeIndex = 0;
+        while (buffer.hasRemaining() && isDigit(buffer.get(buffer.position()))) {
+            typeIndex = typeIndex * 10 + (buffer.get() - '0');
+        }
+        type = TYPES[typeIndex];
+
+        skipWhitespace();
+        buffer.position(buffer.position() + 2); // 0x
+        int value = 0;
+        while (buffer.hasRemaining()) {
+            int digit = Character.digit(buffer.get(buffer.position()), 16);
+            if (digit < 0) {
+                break;
+            }
+            value = (value << 4) | digit;
+            buffer.get();
+        }
+        secondField = value;
+    }
+
+    @Override
+    public InstructionType getType() {
+        return type;
+    }
+
+    @Override
+    public int getSecondField() {
+        return secondField;
+    }
+
+    private void skipWhitespace() {
+        while (buffer.hasRemaining() && Character.isWhitespace(buffer.get(buffer.position()))) {
+            buffer.get();
+        }
+        if (buffer.remaining() < MAX_LINE_LENGTH && windowStart + buffer.limit() < fileSize) {
+            remap();
+        }
+    }
+
+    private void remap() {
+        windowStart += buffer.position();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(fileSize - windowStart, WINDOW_SIZE));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not remap " + path, e);
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
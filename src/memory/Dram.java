@@ -0,0 +1,106 @@
+package memory;
+
+import java.util.Arrays;
+
+/**
+ * Memory controller in front of DRAM banks, each with a row buffer holding its open row.
+ * An access to the open row is a row hit, one to a bank with no open row a row miss (activate then read), and one to
+ * another row a row conflict (precharge, activate then read). With the open page policy a row stays open after an
+ * access, with the closed page policy it is closed at once so that every access is a row miss.
+ * Consecutive rows are spread over the channels, then over the banks of each channel. A bank serves one access at a
+ * time, an access to a busy bank waits for it to be done.
+ */
+public final class Dram {
+
+    private final int numBanks;
+    private final int rowSize;
+    private final boolean openPage;
+    private final int rowHitLatency;
+    private final int rowMissLatency;
+    private final int rowConflictLatency;
+    private final long[] openRows;
+    private final long[] readyAt;
+    private long rowHits;
+    private long rowMisses;
+    private long rowConflicts;
+    private long bankWaitCycles;
+
+    /**
+     * @param banks number of banks per channel
+     * @param rowSize number of bytes of a row
+     */
+    public Dram(int channels, int banks, int rowSize, boolean openPage, int rowHitLatency, int rowMissLatency,
+                int rowConflictLatency) {
+        this.numBanks = channels * banks;
+        this.rowSize = rowSize;
+        this.openPage = openPage;
+        this.rowHitLatency = rowHitLatency;
+        this.rowMissLatency = rowMissLatency;
+        this.rowConflictLatency = rowConflictLatency;
+        this.openRows = new long[numBanks];
+        this.readyAt = new long[numBanks];
+        Arrays.fill(openRows, -1);
+    }
+
+    /**
+     * Cycles to read the block holding the address, from the given cycle on.
+     */
+    public int read(int address, long cycle) {
+        return access(address, cycle);
+    }
+
+    /**
+     * Cycles to write the block holding the address, from the given cycle on.
+     */
+    public int write(int address, long cycle) {
+        return access(address, cycle);
+    }
+
+    public long getRowHits() {
+        return rowHits;
+    }
+
+    public long getRowMisses() {
+        return rowMisses;
+    }
+
+    public long getRowConflicts() {
+        return rowConflicts;
+    }
+
+    public double getRowBufferHitRate() {
+        long accesses = rowHits + rowMisses + rowConflicts;
+        return accesses == 0 ? 0 : ((double) rowHits) / accesses * 100;
+    }
+
+    /**
+     * Cycles the accesses spent waiting for their bank to be done with a previous access, summed over all of them.
+     */
+    public long getBankWaitCycles() {
+        return bankWaitCycles;
+    }
+
+    private int access(int address, long cycle) {
+        long row = Integer.toUnsignedLong(address) / rowSize;
+        int bank = (int) (row % numBanks);
+        long bankRow = row / numBanks;
+
+        int latency;
+        if (openRows[bank] == bankRow) {
+            rowHits++;
+            latency = rowHitLatency;
+        } else if (openRows[bank] < 0) {
+            rowMisses++;
+            latency = rowMissLatency;
+        } else {
+            rowConflicts++;
+            latency = rowConflictLatency;
+        }
+        openRows[bank] = openPage ? bankRow : -1;
+
+        long start = Math.max(cycle, readyAt[bank]);
+        bankWaitCycles += start - cycle;
+        readyAt[bank] = start + latency;
+        return (int) (start - cycle) + latency;
+    }
+}
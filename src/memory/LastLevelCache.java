@@ -0,0 +1,153 @@
+package memory;
+
+import cache.lru.LruQueue;
+
+import java.util.Arrays;
+
+/**
+ * Cache shared by all the private caches, between the buses and memory, with its own geometry and latency.
+ * It is filled by the blocks read from memory and by the blocks written back by the private caches.
+ * An inclusive cache evicting a block has the private caches drop their copies of it (back invalidation), a dirty
+ * copy is written back to memory with the block.
+ * Blocks are the plain address ranges of blockSize bytes, whatever the mapping of the private caches.
+ * Reading memory on a miss and writing back the evicted dirty blocks are left to the owner of the cache.
+ */
+public final class LastLevelCache {
+
+    public interface EvictionListener {
+        /**
+         * Returns whether a private cache dropped a dirty copy of the block, which is then written back with it.
+         */
+        boolean evicted(int firstAddress, boolean dirty);
+    }
+
+    private final int size;
+    private final int associativity;
+    private final int blockSize;
+    private final int numSets;
+    private final int latency;
+    private final boolean inclusive;
+    private final long[] blocks;
+    private final boolean[] dirty;
+    private final LruQueue[] lruQueues;
+    private EvictionListener evictionListener;
+    private long hits;
+    private long misses;
+    private long memoryWriteBacks;
+    private long backInvalidations;
+
+    public LastLevelCache(int size, int associativity, int blockSize, int latency, boolean inclusive) {
+        this.size = size;
+        this.associativity = associativity;
+        this.blockSize = blockSize;
+        this.numSets = size / (blockSize * associativity);
+        this.latency = latency;
+        this.inclusive = inclusive;
+        this.blocks = new long[numSets * associativity];
+        this.dirty = new boolean[numSets * associativity];
+        this.lruQueues = new LruQueue[numSets];
+        Arrays.fill(blocks, -1);
+        for (int i = 0; i < numSets; i++) {
+            lruQueues[i] = new LruQueue(associativity);
+        }
+    }
+
+    /**
+     * Called with the first address of every block evicted.
+     */
+    public void onEviction(EvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Reads the block holding the address, returns whether it was there. It is filled otherwise, from memory.
+     */
+    public boolean read(int address) {
+        if (access(address, false)) {
+            hits++;
+            return true;
+        }
+        misses++;
+        return false;
+    }
+
+    /**
+     * Writes back the block holding the address, it is filled on a miss without reading memory.
+     */
+    public void write(int address) {
+        access(address, true);
+    }
+
+    public int getLatency() {
+        return latency;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public boolean isInclusive() {
+        return inclusive;
+    }
+
+    public double getHitRate() {
+        return hits + misses == 0 ? 0 : ((double) hits) / (hits + misses) * 100;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of blocks evicted dirty, here or in a private cache, hence written back to memory.
+     */
+    public long getMemoryWriteBacks() {
+        return memoryWriteBacks;
+    }
+
+    /**
+     * Number of blocks evicted while inclusive, each of which had the private caches drop their copies.
+     */
+    public long getBackInvalidations() {
+        return backInvalidations;
+    }
+
+    // returns whether the block was there, it is filled otherwise
+    private boolean access(int address, boolean write) {
+        long block = Integer.toUnsignedLong(address) / blockSize;
+        int set = (int) (block % numSets);
+        int first = set * associativity;
+        for (int i = first; i < first + associativity; i++) {
+            if (blocks[i] == block) {
+                dirty[i] |= write;
+                lruQueues[set].update(i - first);
+                return true;
+            }
+        }
+
+        int way = lruQueues[set].blockToEvacuate();
+        int victim = first + way;
+        if (blocks[victim] >= 0) {
+            boolean dirtyCopy = evictionListener != null
+                    && evictionListener.evicted((int) (blocks[victim] * blockSize), dirty[victim]);
+            if (dirty[victim] || dirtyCopy) {
+                memoryWriteBacks++;
+            }
+            if (inclusive) {
+                backInvalidations++;
+            }
+        }
+        blocks[victim] = block;
+        dirty[victim] = write;
+        lruQueues[set].update(way);
+        return false;
+    }
+}
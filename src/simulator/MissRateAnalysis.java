@@ -0,0 +1,92 @@
+package simulator;
+
+import cache.AddressMapper;
+import instruction.InstructionCursor;
+import instruction.InstructionParser;
+import instruction.InstructionType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Functional miss rates of private LRU caches, without timing nor coherence, for every combination of the
+ * given parameters. Each trace is read once, feeding one StackDistanceProfile per number of sets and block size,
+ * shared by the combinations with these sets.
+ * Meant as a fast pre-filter before running the full simulation on the interesting points.
+ */
+public final class MissRateAnalysis {
+
+    private final List<String> traces;
+    private final boolean hashedSetIndexing;
+
+    /**
+     * @param traces the trace file of every core, a file may be given to several cores
+     */
+    public MissRateAnalysis(List<String> traces, boolean hashedSetIndexing) {
+        this.traces = traces;
+        this.hashedSetIndexing = hashedSetIndexing;
+    }
+
+    public List<MissRateResult> run(List<Integer> cacheSizes, List<Integer> associativities, List<Integer> blockSizes) {
+        // the profiles needed, by number of sets and block size, with the largest associativity each is used for
+        Map<List<Integer>, Integer> maxAssociativities = new LinkedHashMap<>();
+        for (int cacheSize : cacheSizes) {
+            for (int associativity : associativities) {
+                for (int blockSize : blockSizes) {
+                    if (cacheSize >= blockSize * associativity) {
+                        maxAssociativities.merge(List.of(cacheSize / (blockSize * associativity), blockSize),
+                                associativity, Math::max);
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<List<Integer>, StackDistanceProfile>> profiles = new HashMap<>();
+        for (String trace : traces) {
+            if (!profiles.containsKey(trace)) {
+                profiles.put(trace, profile(trace, maxAssociativities));
+            }
+        }
+
+        List<MissRateResult> results = new ArrayList<>();
+        for (int cacheSize : cacheSizes) {
+            for (int associativity : associativities) {
+                for (int blockSize : blockSizes) {
+                    if (cacheSize < blockSize * associativity) {
+                        continue;
+                    }
+                    List<Integer> geometry = List.of(cacheSize / (blockSize * associativity), blockSize);
+                    double totalMissRate = 0;
+                    for (String trace : traces) {
+                        totalMissRate += profiles.get(trace).get(geometry).getMissRate(associativity);
+                    }
+                    results.add(new MissRateResult(cacheSize, associativity, blockSize, traces.size(),
+                            totalMissRate / traces.size()));
+                }
+            }
+        }
+        return results;
+    }
+
+    private Map<List<Integer>, StackDistanceProfile> profile(String trace,
+                                                             Map<List<Integer>, Integer> maxAssociativities) {
+        Map<List<Integer>, StackDistanceProfile> profiles = new HashMap<>();
+        maxAssociativities.forEach((geometry, maxAssociativity) -> profiles.put(geometry, new StackDistanceProfile(
+                AddressMapper.create(geometry.get(0), geometry.get(1), hashedSetIndexing), maxAssociativity)));
+        StackDistanceProfile[] all = profiles.values().toArray(new StackDistanceProfile[0]);
+
+        InstructionCursor cursor = InstructionParser.openTrace(trace);
+        while (cursor.hasNext()) {
+            cursor.next();
+            if (cursor.getType() != InstructionType.OTHER) {
+                for (StackDistanceProfile profile : all) {
+                    profile.access(cursor.getSecondField());
+                }
+            }
+        }
+        return profiles;
+    }
+}
@@ -0,0 +1,34 @@
+package simulator;
+
+import java.util.Locale;
+
+public final class MissRateResult implements ResultRow {
+
+    public static final String CSV_HEADER = "cache_size,associativity,block_size,cores,average_miss_rate";
+
+    private final int cacheSize;
+    private final int associativity;
+    private final int blockSize;
+    private final int cores;
+    private final double averageMissRate;
+
+    public MissRateResult(int cacheSize, int associativity, int blockSize, int cores, double averageMissRate) {
+        this.cacheSize = cacheSize;
+        this.associativity = associativity;
+        this.blockSize = blockSize;
+        this.cores = cores;
+        this.averageMissRate = averageMissRate;
+    }
+
+    @Override
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%d,%d,%d,%d,%f", cacheSize, associativity, blockSize, cores,
+                averageMissRate);
+    }
+
+    @Override
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"cache_size\": %d, \"associativity\": %d, \"block_size\": %d, " +
+                "\"cores\": %d, \"average_miss_rate\": %f}", cacheSize, associativity, blockSize, cores, averageMissRate);
+    }
+}
@@ -0,0 +1,98 @@
+package simulator;
+
+import bus.Interconnect;
+import cache.Protocol;
+import cache.prefetch.PrefetchPolicy;
+import cache.replacement.ReplacementPolicy;
+import instruction.InstructionArray;
+import instruction.InstructionCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Simulates every combination of the given parameters, in parallel, on the same in-memory traces.
+ * Combinations whose cache cannot hold a single line (cache_size < block_size * associativity) are skipped.
+ * The buses and memory of every simulation are created by interconnects from the size of its shared last level
+ * cache, 0 for none.
+ */
+public final class ParameterSweep {
+
+    private final List<InstructionArray> traces;
+    private final boolean cycleByCycle;
+    private final IntFunction<Interconnect> interconnects;
+    private final int mshrs;
+    private final int storeBufferDepth;
+    private final int writeBackBufferDepth;
+    private final PrefetchPolicy prefetchPolicy;
+    private final int prefetchDegree;
+    private final ReplacementPolicy replacementPolicy;
+    private final long replacementSeed;
+    private final boolean hashedSetIndexing;
+
+    public ParameterSweep(List<InstructionArray> traces, boolean cycleByCycle, IntFunction<Interconnect> interconnects,
+                          int mshrs, int storeBufferDepth, int writeBackBufferDepth, PrefetchPolicy prefetchPolicy,
+                          int prefetchDegree, ReplacementPolicy replacementPolicy, long replacementSeed,
+                          boolean hashedSetIndexing) {
+        this.traces = traces;
+        this.cycleByCycle = cycleByCycle;
+        this.interconnects = interconnects;
+        this.mshrs = mshrs;
+        this.storeBufferDepth = storeBufferDepth;
+        this.writeBackBufferDepth = writeBackBufferDepth;
+        this.prefetchPolicy = prefetchPolicy;
+        this.prefetchDegree = prefetchDegree;
+        this.replacementPolicy = replacementPolicy;
+        this.replacementSeed = replacementSeed;
+        this.hashedSetIndexing = hashedSetIndexing;
+    }
+
+    public List<SweepResult> run(List<Protocol> protocols, List<Integer> cacheSizes, List<Integer> associativities,
+                                 List<Integer> blockSizes, List<Integer> llcSizes, int threads) {
+        List<Callable<SweepResult>> points = new ArrayList<>();
+        for (Protocol protocol : protocols) {
+            for (int cacheSize : cacheSizes) {
+                for (int associativity : associativities) {
+                    for (int blockSize : blockSizes) {
+                        if (cacheSize >= blockSize * associativity) {
+                            for (int llcSize : llcSizes) {
+                                points.add(() -> simulate(protocol, cacheSize, associativity, blockSize, llcSize));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<SweepResult> results = new ArrayList<>(points.size());
+            for (Future<SweepResult> result : pool.invokeAll(points)) {
+                results.add(result.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sweep point failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private SweepResult simulate(Protocol protocol, int cacheSize, int associativity, int blockSize, int llcSize) {
+        List<InstructionCursor> cursors = new ArrayList<>(traces.size());
+        traces.forEach(t -> cursors.add(t.cursor()));
+        Simulation simulation = new Simulation(protocol, cacheSize, associativity, blockSize, cursors,
+                interconnects.apply(llcSize), mshrs, storeBufferDepth, writeBackBufferDepth, prefetchPolicy,
+                prefetchDegree, replacementPolicy, replacementSeed, hashedSetIndexing);
+        simulation.run(cycleByCycle);
+        return new SweepResult(simulation, cacheSize, associativity, blockSize, llcSize);
+    }
+}
@@ -0,0 +1,8 @@
+package simulator;
+
+public interface ResultRow {
+
+    String toCsv();
+
+    String toJson();
+}
@@ -0,0 +1,178 @@
+package simulator;
+
+import bus.Interconnect;
+import cache.AddressMapper;
+import cache.Cache;
+import cache.Protocol;
+import cache.dragon.DragonCache;
+import cache.mesi.MesiCache;
+import cache.mesif.MesifCache;
+import cache.moesi.MoesiCache;
+import cache.prefetch.PrefetchPolicy;
+import cache.prefetch.Prefetcher;
+import cache.replacement.ReplacementPolicy;
+import common.Clocked;
+import cpu.Cpu;
+import instruction.InstructionCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One simulated system: a core and its private cache per trace, all attached to the buses of the interconnect.
+ * The caches are blocking when mshrs is 0, non-blocking with mshrs MSHRs otherwise.
+ * Cores have no store buffer when storeBufferDepth is 0, caches have no write back buffer when writeBackBufferDepth is 0.
+ * Every cache gets its own prefetcher of the policy, fetching prefetchDegree blocks ahead.
+ * Cache i evicts its blocks with the replacement policy, seeded with replacementSeed + i.
+ * All the caches share the mapping of addresses to sets, hashed when hashedSetIndexing holds.
+ */
+public final class Simulation {
+
+    private final Protocol protocol;
+    private final List<Cpu> processors;
+    private final List<Cache> caches;
+    private final Interconnect interconnect;
+
+    public Simulation(Protocol protocol, int cacheSize, int associativity, int blockSize, List<InstructionCursor> traces,
+                      Interconnect interconnect, int mshrs, int storeBufferDepth, int writeBackBufferDepth,
+                      PrefetchPolicy prefetchPolicy, int prefetchDegree, ReplacementPolicy replacementPolicy,
+                      long replacementSeed, boolean hashedSetIndexing) {
+        this.protocol = protocol;
+        this.processors = new ArrayList<>(traces.size());
+        this.caches = new ArrayList<>(traces.size());
+        this.interconnect = interconnect;
+
+        AddressMapper addressMapper = AddressMapper.create(cacheSize / (blockSize * associativity), blockSize,
+                hashedSetIndexing);
+        for (int i = 0; i < traces.size(); i++) {
+            Cache cache = createCache(protocol, i, addressMapper, associativity, Math.max(mshrs, 1),
+                    writeBackBufferDepth, prefetchPolicy.createPrefetcher(blockSize, prefetchDegree), replacementPolicy,
+                    replacementSeed + i);
+            Cpu p = new Cpu(cache, mshrs > 0, storeBufferDepth);
+            p.setInstructions(traces.get(i));
+            processors.add(p);
+            caches.add(cache);
+            cache.linkCpu(p);
+            interconnect.attach(cache);
+        }
+    }
+
+    public void run(boolean cycleByCycle) {
+        if (cycleByCycle) {
+            runUntilEnd();
+        } else {
+            runSkippingIdleCycles();
+        }
+    }
+
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    public List<Cpu> getProcessors() {
+        return processors;
+    }
+
+    public List<Cache> getCaches() {
+        return caches;
+    }
+
+    public Interconnect getInterconnect() {
+        return interconnect;
+    }
+
+    public long getOverallExecutionCycles() {
+        return processors.stream().mapToLong(p -> p.getCycleCount()).max().getAsLong();
+    }
+
+    public double getAverageMissRate() {
+        return caches.stream().map(c -> c.getMissRate()).reduce((a, b) -> a + b).get() / caches.size();
+    }
+
+    public double getAverageMissLatency() {
+        long misses = caches.stream().mapToLong(c -> c.getNbCacheMiss()).sum();
+        long missCycles = caches.stream().mapToLong(c -> c.getMissCycles()).sum();
+        return misses == 0 ? 0 : (double) missCycles / misses;
+    }
+
+    public double getAverageMemoryLevelParallelism() {
+        return caches.stream().mapToDouble(c -> c.getMemoryLevelParallelism()).sum() / caches.size();
+    }
+
+    public double getAveragePrefetchAccuracy() {
+        return caches.stream().mapToDouble(c -> c.getPrefetchAccuracy()).sum() / caches.size();
+    }
+
+    public double getAveragePrefetchCoverage() {
+        return caches.stream().mapToDouble(c -> c.getPrefetchCoverage()).sum() / caches.size();
+    }
+
+    public int getTotalNumOfInvalidations() {
+        return caches.stream().map(c -> c.getNbInvalidations()).reduce(0, (a, b) -> a + b);
+    }
+
+    public int getTotalNumOfDirtyTransfers() {
+        return caches.stream().map(c -> c.getNbDirtyTransfers()).reduce(0, (a, b) -> a + b);
+    }
+
+    private static Cache createCache(Protocol protocol, int id, AddressMapper addressMapper, int associativity,
+                                     int numMshrs, int writeBackBufferDepth, Prefetcher prefetcher,
+                                     ReplacementPolicy replacementPolicy, long replacementSeed) {
+        switch (protocol) {
+            case MESI:
+                return new MesiCache(id, addressMapper, associativity, numMshrs, writeBackBufferDepth,
+                        prefetcher, replacementPolicy, replacementSeed);
+            case MOESI:
+                return new MoesiCache(id, addressMapper, associativity, numMshrs, writeBackBufferDepth,
+                        prefetcher, replacementPolicy, replacementSeed);
+            case MESIF:
+                return new MesifCache(id, addressMapper, associativity, numMshrs, writeBackBufferDepth,
+                        prefetcher, replacementPolicy, replacementSeed);
+            default:
+                return new DragonCache(id, addressMapper, associativity, numMshrs, writeBackBufferDepth,
+                        prefetcher, replacementPolicy, replacementSeed);
+        }
+    }
+
+    private void runUntilEnd() {
+
+        while (!allFinished()) {
+            runForOneCycle();
+        }
+    }
+
+    /**
+     * Same simulation as runUntilEnd, but jumps over the cycles in which no component changes state,
+     * e.g. all cores computing or waiting on memory.
+     */
+    private void runSkippingIdleCycles() {
+
+        while (!allFinished()) {
+            int nextEvent = interconnect.cyclesUntilNextEvent();
+            for (Cache c : caches) {
+                nextEvent = Math.min(nextEvent, c.cyclesUntilNextEvent());
+            }
+            for (Cpu p : processors) {
+                nextEvent = Math.min(nextEvent, p.cyclesUntilNextEvent());
+            }
+            if (nextEvent > 1 && nextEvent != Clocked.NO_EVENT) {
+                int skipped = nextEvent - 1;
+                interconnect.skipCycles(skipped);
+                caches.forEach(c -> c.skipCycles(skipped));
+                processors.forEach(p -> p.skipCycles(skipped));
+            }
+            runForOneCycle();
+        }
+    }
+
+    private void runForOneCycle() {
+        interconnect.runForOneCycle();
+        caches.forEach(c -> c.runForOneCycle());
+        processors.forEach(p -> p.runForOneCycle());
+        interconnect.arbitrate();
+    }
+
+    private boolean allFinished() {
+        return processors.stream().allMatch(p -> p.finishedExecution());
+    }
+}
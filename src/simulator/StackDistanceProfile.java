@@ -0,0 +1,66 @@
+package simulator;
+
+import cache.AddressMapper;
+
+/**
+ * LRU stack distances (Mattson et al.) of the accesses of one trace, for one number of sets and block size.
+ * Every set keeps its tags from most to least recently used, an access found at depth d hits in any cache with
+ * these sets of associativity greater than d, so a single pass gives the miss rate of every associativity up to the
+ * maximum, each for the cache size it makes with these sets.
+ */
+public final class StackDistanceProfile {
+
+    private final AddressMapper addressMapper;
+    private final int maxAssociativity;
+    private final long[] hitsAtDepth;
+    private final int[][] stacks;
+    private final int[] depths;
+    private long accesses;
+
+    public StackDistanceProfile(AddressMapper addressMapper, int maxAssociativity) {
+        this.addressMapper = addressMapper;
+        this.maxAssociativity = maxAssociativity;
+        this.hitsAtDepth = new long[maxAssociativity];
+        this.stacks = new int[addressMapper.getNumSets()][maxAssociativity];
+        this.depths = new int[addressMapper.getNumSets()];
+        this.accesses = 0;
+    }
+
+    public void access(int address) {
+        long block = addressMapper.getBlock(address);
+        int set = addressMapper.getSet(block);
+        int tag = addressMapper.getTag(block);
+
+        int[] stack = stacks[set];
+        int depth = depths[set];
+        int distance = 0;
+        while (distance < depth && stack[distance] != tag) {
+            distance++;
+        }
+
+        accesses++;
+        int shifted;
+        if (distance < depth) {
+            hitsAtDepth[distance]++;
+            shifted = distance;
+        } else if (depth < maxAssociativity) {
+            depths[set]++;
+            shifted = depth;
+        } else {
+            shifted = depth - 1; // the least recently used tag falls out of every cache considered
+        }
+        System.arraycopy(stack, 0, stack, 1, shifted);
+        stack[0] = tag;
+    }
+
+    public double getMissRate(int associativity) {
+        if (accesses == 0) {
+            return 0;
+        }
+        long hits = 0;
+        for (int i = 0; i < associativity; i++) {
+            hits += hitsAtDepth[i];
+        }
+        return ((double) (accesses - hits)) / accesses * 100;
+    }
+}
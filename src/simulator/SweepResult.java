@@ -0,0 +1,68 @@
+package simulator;
+
+import cache.Protocol;
+import memory.Dram;
+
+import java.util.Locale;
+
+public final class SweepResult implements ResultRow {
+
+    public static final String CSV_HEADER = "protocol,cache_size,associativity,block_size,cores,execution_cycles," +
+            "average_miss_rate,average_miss_latency,bus_events,dirty_transfers,bus_traffic,llc_size,llc_hit_rate," +
+            "row_buffer_hit_rate,prefetch_accuracy,prefetch_coverage";
+
+    private final Protocol protocol;
+    private final int cacheSize;
+    private final int associativity;
+    private final int blockSize;
+    private final int cores;
+    private final long executionCycles;
+    private final double averageMissRate;
+    private final double averageMissLatency;
+    private final int busEvents;
+    private final int dirtyTransfers;
+    private final int busTraffic;
+    private final int llcSize;
+    private final double llcHitRate;
+    private final double rowBufferHitRate;
+    private final double prefetchAccuracy;
+    private final double prefetchCoverage;
+
+    public SweepResult(Simulation simulation, int cacheSize, int associativity, int blockSize, int llcSize) {
+        this.protocol = simulation.getProtocol();
+        this.cacheSize = cacheSize;
+        this.associativity = associativity;
+        this.blockSize = blockSize;
+        this.cores = simulation.getProcessors().size();
+        this.executionCycles = simulation.getOverallExecutionCycles();
+        this.averageMissRate = simulation.getAverageMissRate();
+        this.averageMissLatency = simulation.getAverageMissLatency();
+        this.busEvents = simulation.getTotalNumOfInvalidations();
+        this.dirtyTransfers = simulation.getTotalNumOfDirtyTransfers();
+        this.busTraffic = simulation.getInterconnect().getBusTraffic();
+        this.llcSize = llcSize;
+        this.llcHitRate = llcSize == 0 ? 0 : simulation.getInterconnect().getLastLevelCache().getHitRate();
+        Dram dram = simulation.getInterconnect().getDram();
+        this.rowBufferHitRate = dram == null ? 0 : dram.getRowBufferHitRate();
+        this.prefetchAccuracy = simulation.getAveragePrefetchAccuracy();
+        this.prefetchCoverage = simulation.getAveragePrefetchCoverage();
+    }
+
+    @Override
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%f,%f,%d,%d,%d,%d,%f,%f,%f,%f", protocol, cacheSize,
+                associativity, blockSize, cores, executionCycles, averageMissRate, averageMissLatency, busEvents,
+                dirtyTransfers, busTraffic, llcSize, llcHitRate, rowBufferHitRate, prefetchAccuracy, prefetchCoverage);
+    }
+
+    @Override
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"protocol\": \"%s\", \"cache_size\": %d, \"associativity\": %d, " +
+                        "\"block_size\": %d, \"cores\": %d, \"execution_cycles\": %d, \"average_miss_rate\": %f, " +
+                        "\"average_miss_latency\": %f, \"bus_events\": %d, \"dirty_transfers\": %d, " +
+                        "\"bus_traffic\": %d, \"llc_size\": %d, \"llc_hit_rate\": %f, \"row_buffer_hit_rate\": %f, " +
+                        "\"prefetch_accuracy\": %f, \"prefetch_coverage\": %f}", protocol, cacheSize, associativity,
+                blockSize, cores, executionCycles, averageMissRate, averageMissLatency, busEvents, dirtyTransfers,
+                busTraffic, llcSize, llcHitRate, rowBufferHitRate, prefetchAccuracy, prefetchCoverage);
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs of the protocols on a few hand written instructions, whose bus transactions are known.
+ */
+class CoherenceTest {
+
+    private static final String BLOCK = "0x100";
+    // long enough for the other core to be done with its accesses
+    private static final String WAIT = "2 0x1000";
+
+    @TempDir
+    Path traces;
+
+    @Test
+    void moesiHandsADirtyBlockOverWithoutWritingItBack() throws IOException {
+        writeTraces(new String[]{"1 " + BLOCK}, new String[]{WAIT, "0 " + BLOCK});
+
+        String moesi = MainRunner.run("moesi", traces.toString(), "4096", "2", "32", "--cores=2");
+        String mesi = MainRunner.run("mesi", traces.toString(), "4096", "2", "32", "--cores=2");
+        // MESI flushes the block to memory before the reader gets it
+        assertTrue(value(moesi, "Execution cycles for core 1: ") < value(mesi, "Execution cycles for core 1: "));
+        assertEquals(1, value(moesi, "Number of dirty cache to cache transfers: "));
+    }
+
+    @Test
+    void moesiCountsNoDirtyTransferForAnUpgrade() throws IOException {
+        // core 1 gets the block from the owner, then writes its shared copy
+        writeTraces(new String[]{"1 " + BLOCK}, new String[]{WAIT, "0 " + BLOCK, "1 " + BLOCK});
+
+        String moesi = MainRunner.run("moesi", traces.toString(), "4096", "2", "32", "--cores=2");
+        // the write miss of core 0 and the upgrade of core 1
+        assertEquals(2, value(moesi, "Number of invalidations on the bus: "));
+        assertEquals(1, value(moesi, "Number of dirty cache to cache transfers: "));
+    }
+
+    @Test
+    void mesifLeavesSharedCopiesSilent() throws IOException {
+        // core 0 supplies the block to core 1 and becomes its forwarder, then evicts it with a conflicting read
+        writeTraces(new String[]{"0 0x0", "2 0x400", "0 0x1000"},
+                new String[]{"2 0x200", "0 0x0"},
+                new String[]{"2 0x800", "0 0x0"});
+
+        String mesif = MainRunner.run("mesif", traces.toString(), "4096", "1", "32", "--cores=3");
+        String mesi = MainRunner.run("mesi", traces.toString(), "4096", "1", "32", "--cores=3");
+        // with no forwarder left, memory answers core 2 where a MESI sharer would
+        assertTrue(value(mesif, "Execution cycles for core 2: ") > value(mesi, "Execution cycles for core 2: "));
+    }
+
+    @Test
+    void backInvalidationWritesADirtyCopyBack() throws IOException {
+        // 0x1000 takes the only way of the set of the shared cache holding BLOCK, the private cache keeps both
+        writeTraces(new String[]{"1 " + BLOCK, "0 0x1000"});
+
+        String mesi = MainRunner.run("mesi", traces.toString(), "4096", "2", "32", "--cores=1",
+                "--llc-size=64", "--llc-associativity=1", "--llc-block-size=32");
+        assertEquals(1, value(mesi, "Blocks dropped on back invalidations for cache 0: "));
+        assertEquals(1, value(mesi, "Dirty blocks written back on back invalidations for cache 0: "));
+        // the shared cache read the block clean, only the copy of the private cache was dirty
+        assertEquals(1, value(mesi, "Last level cache write backs to memory "));
+    }
+
+    private void writeTraces(String[]... instructions) throws IOException {
+        for (int core = 0; core < instructions.length; core++) {
+            Files.write(traces.resolve("t" + core + ".data"), String.join("\n", instructions[core]).getBytes());
+        }
+    }
+
+    private static long value(String output, String label) {
+        Matcher matcher = Pattern.compile(Pattern.quote(label) + "(\\d+)").matcher(output);
+        assertTrue(matcher.find(), label + " not printed");
+        return Long.parseLong(matcher.group(1));
+    }
+}
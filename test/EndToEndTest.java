@@ -0,0 +1,188 @@
+import instruction.BinaryTraceWriter;
+import instruction.InstructionCursor;
+import instruction.InstructionParser;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Whole runs of the simulator on small generated traces, checking that its modes agree with each other.
+ */
+class EndToEndTest {
+
+    private static final int NUM_TRACES = 4;
+    private static final int TRACE_LENGTH = 5000;
+
+    @TempDir
+    static Path directory;
+    private static Path text;
+    private static Path binary;
+    private static Path delta;
+
+    @BeforeAll
+    static void writeTraces() throws IOException {
+        text = TestTraces.write(Files.createDirectory(directory.resolve("text")), NUM_TRACES, TRACE_LENGTH);
+        binary = Files.createDirectory(directory.resolve("binary"));
+        delta = Files.createDirectory(directory.resolve("delta"));
+        for (int i = 0; i < NUM_TRACES; i++) {
+            String name = "t" + i + ".data";
+            BinaryTraceWriter.convert(text.resolve(name).toString(), binary.resolve(name).toString(), false);
+            BinaryTraceWriter.convert(text.resolve(name).toString(), delta.resolve(name).toString(), true);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "mesi 4096 2 32",
+            "dragon 4096 2 32",
+            "mesi 1024 1 16",
+            "dragon 8192 4 64",
+            "moesi 4096 2 32",
+            "moesi 8192 8 16",
+            "mesif 4096 2 32",
+            "mesif 2048 4 16",
+            "mesi 4096 2 32 --bus=split",
+            "moesi 4096 2 32 --bus=split --bus-transactions=2",
+            "dragon 4096 2 32 --bus=split",
+            "mesi 4096 2 32 --arbitration=round-robin",
+            "moesi 4096 2 32 --bus=split --arbitration=fixed-priority",
+            "dragon 4096 2 32 --arbitration=random --arbitration-seed=7",
+            "mesi 4096 2 32 --buses=2",
+            "mesif 4096 2 32 --buses=4 --bus=split",
+            "dragon 4096 2 32 --buses=2 --arbitration=round-robin",
+            "mesi 4096 2 32 --mshrs=4",
+            "moesi 4096 2 32 --mshrs=2 --buses=2",
+            "mesif 4096 2 32 --mshrs=8 --buses=4 --bus=split",
+            "dragon 4096 2 32 --mshrs=4 --arbitration=random",
+            "mesi 4096 2 32 --store-buffer=4",
+            "moesi 4096 2 32 --store-buffer=8 --mshrs=4",
+            "dragon 4096 2 32 --store-buffer=2 --buses=2",
+            "mesi 4096 2 32 --writeback-buffer=4",
+            "moesi 1024 2 32 --writeback-buffer=2 --mshrs=4",
+            "dragon 1024 1 32 --writeback-buffer=1 --bus=split",
+            "mesi 4096 2 32 --llc-size=16384",
+            "moesi 1024 2 32 --llc-size=4096 --llc-associativity=2 --writeback-buffer=2",
+            "mesif 1024 2 32 --llc-size=8192 --llc-inclusion=non-inclusive --mshrs=4",
+            "dragon 4096 2 32 --llc-size=8192 --llc-block-size=64 --buses=2",
+            "mesi 4096 2 32 --memory=dram",
+            "moesi 4096 2 32 --memory=dram --dram-page=closed --llc-size=16384",
+            "dragon 1024 2 32 --memory=dram --dram-banks=2 --mshrs=4 --writeback-buffer=2",
+            "mesi 4096 2 32 --coherence=directory",
+            "moesi 4096 2 32 --coherence=directory --homes=2 --mshrs=4",
+            "mesif 1024 2 32 --coherence=directory --llc-size=8192",
+            "dragon 4096 2 32 --coherence=directory --homes=1",
+            "mesi 4096 2 32 --prefetcher=next-line",
+            "moesi 4096 2 32 --prefetcher=stride --mshrs=4 --buses=2",
+            "mesif 4096 2 32 --prefetcher=stream --prefetch-degree=4 --store-buffer=4",
+            "dragon 4096 2 32 --prefetcher=next-line --coherence=directory",
+            "mesi 4096 4 32 --replacement=plru",
+            "moesi 4096 8 32 --replacement=srrip --mshrs=4",
+            "mesif 4096 4 32 --replacement=brrip --llc-size=16384",
+            "dragon 4096 4 32 --replacement=random --replacement-seed=5",
+            "mesi 4096 4 32 --replacement=lfu --writeback-buffer=2",
+            "mesi 4096 2 32 --set-indexing=xor",
+            "moesi 3072 2 32 --mshrs=4",
+            "dragon 6144 3 32 --set-indexing=xor --buses=2"
+    })
+    void eventEngineMatchesCycleEngine(String config) {
+        String[] args = arguments(config, text);
+        String event = MainRunner.run(append(args, "--engine=event"));
+        String cycle = MainRunner.run(append(args, "--engine=cycle"));
+        assertTrue(event.contains("Overall Execution Cycle"), event);
+        assertEquals(cycle, event);
+    }
+
+    @Test
+    void binaryTracesHoldTheTextInstructions() {
+        for (int i = 0; i < NUM_TRACES; i++) {
+            String name = "t" + i + ".data";
+            for (Path converted : new Path[]{binary, delta}) {
+                InstructionCursor expected = InstructionParser.openTrace(text.resolve(name).toString());
+                InstructionCursor actual = InstructionParser.openTrace(converted.resolve(name).toString());
+                int count = 0;
+                while (expected.hasNext()) {
+                    assertTrue(actual.hasNext());
+                    expected.next();
+                    actual.next();
+                    assertEquals(expected.getType(), actual.getType());
+                    assertEquals(expected.getSecondField(), actual.getSecondField());
+                    count++;
+                }
+                assertFalse(actual.hasNext());
+                assertEquals(TRACE_LENGTH, count);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"mesi 4096 2 32", "dragon 4096 2 32"})
+    void binaryTracesGiveTheTextResults(String config) {
+        String expected = MainRunner.run(arguments(config, text));
+        assertEquals(expected, MainRunner.run(arguments(config, binary)));
+        assertEquals(expected, MainRunner.run(arguments(config, delta)));
+        assertEquals(expected, MainRunner.run(append(arguments(config, text), "--trace-storage=array")));
+    }
+
+    /**
+     * Cores invalidating each other's copies of a few blocks used to leave the bus re-running a request forever.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "mesi --cores=32",
+            "mesi --cores=64",
+            "moesi --cores=32",
+            "mesif --cores=32",
+            "mesi --cores=32 --bus=split",
+            "dragon --cores=32 --bus=split",
+            "mesi --cores=32 --arbitration=random",
+            "moesi --cores=32 --buses=4",
+            "mesi --cores=32 --mshrs=4 --buses=2",
+            "dragon --cores=64 --mshrs=4",
+            "mesif --cores=32 --store-buffer=8 --mshrs=4",
+            "moesi --cores=32 --writeback-buffer=4 --mshrs=4",
+            "mesi --cores=32 --llc-size=16384 --mshrs=4",
+            "dragon --cores=32 --memory=dram --llc-size=16384",
+            "mesi --cores=32 --coherence=directory",
+            "moesi --cores=64 --coherence=directory --mshrs=4",
+            "mesi --cores=32 --prefetcher=stream --mshrs=4 --store-buffer=4",
+            "mesif --cores=32 --set-indexing=xor --buses=4",
+            "dragon --cores=64"
+    })
+    void manyCoresFinish(String config) throws Exception {
+        String[] words = config.split(" ");
+        String[] args = append(new String[]{words[0], text.toString(), "4096", "2", "32"},
+                Arrays.copyOfRange(words, 1, words.length));
+        MainRunner.Result result = MainRunner.fork(120, args);
+        assertNotNull(result, "the run did not finish within 120 s");
+        assertEquals(0, result.exitCode, result.errors);
+        assertTrue(result.output.contains("Overall Execution Cycle"), result.output);
+    }
+
+    // the protocol, the traces, then the rest of the configuration
+    private static String[] arguments(String config, Path traces) {
+        String[] words = config.split(" ");
+        String[] args = new String[words.length + 1];
+        args[0] = words[0];
+        args[1] = traces.toString();
+        System.arraycopy(words, 1, args, 2, words.length - 1);
+        return args;
+    }
+
+    private static String[] append(String[] args, String... more) {
+        String[] all = Arrays.copyOf(args, args.length + more.length);
+        System.arraycopy(more, 0, all, args.length, more.length);
+        return all;
+    }
+}
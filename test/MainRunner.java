@@ -0,0 +1,82 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the simulator as from the command line, in this JVM or in a JVM of its own, which can be killed when a run
+ * does not finish and can exit.
+ */
+final class MainRunner {
+
+    /**
+     * What Main printed on the standard output.
+     */
+    static String run(String... args) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(out);
+        }
+        return printed.toString();
+    }
+
+    /**
+     * Runs Main with assertions enabled in a JVM of its own, which is killed after timeoutSeconds.
+     * Returns null when it had to be killed.
+     */
+    static Result fork(long timeoutSeconds, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-ea", "-cp", classPath(), "Main"));
+        command.addAll(Arrays.asList(args));
+        File output = File.createTempFile("main", ".out");
+        File errors = File.createTempFile("main", ".err");
+        try {
+            Process process = new ProcessBuilder(command).redirectOutput(output).redirectError(errors).start();
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+                return null;
+            }
+            return new Result(process.exitValue(), Files.readString(output.toPath()),
+                    Files.readString(errors.toPath()));
+        } finally {
+            output.delete();
+            errors.delete();
+        }
+    }
+
+    // the directory or jar the simulator classes were loaded from
+    private static String classPath() {
+        try {
+            return Paths.get(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Result {
+
+        final int exitCode;
+        final String output;
+        final String errors;
+
+        Result(int exitCode, String output, String errors) {
+            this.exitCode = exitCode;
+            this.output = output;
+            this.errors = errors;
+        }
+    }
+
+    private MainRunner() {
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MainTest {
+
+    @Test
+    void parsesAList() {
+        assertEquals(List.of(0, 16384, 65536), Main.parseValues("0,16384,65536"));
+    }
+
+    @Test
+    void parsesARangeByDoubling() {
+        assertEquals(List.of(1024, 2048, 4096), Main.parseValues("1024:4096"));
+        assertEquals(List.of(3, 6, 12), Main.parseValues("3:16"));
+    }
+
+    @Test
+    void parsesARangeOfOneValue() {
+        assertEquals(List.of(8), Main.parseValues("8:8"));
+    }
+
+    @Test
+    void parsesAnEmptyRange() {
+        assertEquals(List.of(), Main.parseValues("16:8"));
+    }
+
+    @Test
+    void endsARangeReachingTheLargestInt() {
+        List<Integer> values = Main.parseValues("1:" + Integer.MAX_VALUE);
+        assertEquals(31, values.size());
+        assertEquals(1 << 30, values.get(30));
+    }
+
+    @Test
+    void rejectsARangeFromZero(@TempDir Path traces) throws Exception {
+        TestTraces.write(traces, 1, 100);
+        MainRunner.Result result = MainRunner.fork(60, "sweep", traces.toString(), "--protocols=mesi",
+                "--cache-sizes=0:4096");
+        assertNotNull(result, "the sweep did not end");
+        assertEquals(1, result.exitCode);
+        assertTrue(result.errors.contains("positive"), result.errors);
+    }
+
+    @Test
+    void convertsTheTracesOfADirectoryOnly(@TempDir Path directory) throws Exception {
+        Path traces = TestTraces.write(Files.createDirectory(directory.resolve("text")), 2, 100);
+        Files.createDirectory(traces.resolve("nested"));
+        Path converted = directory.resolve("binary");
+
+        MainRunner.Result result = MainRunner.fork(60, "convert", traces.toString(), converted.toString());
+        assertNotNull(result, "the conversion did not end");
+        assertEquals(0, result.exitCode, result.errors);
+        try (Stream<Path> files = Files.list(converted)) {
+            assertEquals(Set.of("t0.data", "t1.data"),
+                    files.map(file -> file.getFileName().toString()).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void sweepsEveryConfigurationAsASingleRunWould(@TempDir Path traces) throws Exception {
+        TestTraces.write(traces, 4, 2000);
+        String[] rows = MainRunner.run("sweep", traces.toString(), "--protocols=mesi,dragon",
+                "--cache-sizes=1024:4096", "--associativities=1,2", "--threads=3").split("\\R");
+
+        assertTrue(rows[0].startsWith("protocol,cache_size,associativity,block_size,cores,execution_cycles,"), rows[0]);
+        assertEquals(1 + 2 * 3 * 2, rows.length);
+        for (int i = 1; i < rows.length; i++) {
+            String[] fields = rows[i].split(",");
+            String single = MainRunner.run(fields[0].toLowerCase(), traces.toString(), fields[1], fields[2], fields[3],
+                    "--cores=" + fields[4]);
+            assertTrue(single.contains("Overall Execution Cycle: " + fields[5] + System.lineSeparator()), rows[i]);
+        }
+    }
+}
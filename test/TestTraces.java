@@ -0,0 +1,40 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Small reproducible traces in the text format, one file per core. Loads and stores go to a region private to the
+ * core and to a few blocks shared by all of them, so the cores keep invalidating each other's copies.
+ */
+final class TestTraces {
+
+    private static final int PRIVATE_REGION = 1 << 11;
+    private static final int SHARED_REGION = 1 << 8;
+    private static final int SHARED_BASE = 0x10000000;
+    private static final int PRIVATE_BASE = 0x20000000;
+
+    static Path write(Path directory, int files, int length) throws IOException {
+        for (int core = 0; core < files; core++) {
+            Random random = new Random(core);
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(directory.resolve("t" + core + ".data")))) {
+                for (int i = 0; i < length; i++) {
+                    int kind = random.nextInt(3);
+                    if (kind == 2) {
+                        writer.println("2 0x" + Integer.toHexString(1 + random.nextInt(16)));
+                    } else {
+                        int address = random.nextInt(2) == 0
+                                ? SHARED_BASE + random.nextInt(SHARED_REGION)
+                                : PRIVATE_BASE + core * PRIVATE_REGION + random.nextInt(PRIVATE_REGION);
+                        writer.println(kind + " 0x" + Integer.toHexString(address & ~3));
+                    }
+                }
+            }
+        }
+        return directory;
+    }
+
+    private TestTraces() {
+    }
+}
@@ -0,0 +1,97 @@
+package bus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnoopFilterTest {
+
+    // never a holder, so isValidElsewhere tells whether any cache holds a valid copy
+    private static final int OUTSIDER = 63;
+
+    @Test
+    void tellsTagHoldersFromValidCopies() {
+        SnoopFilter filter = new SnoopFilter();
+        filter.ensureCaches(4);
+        filter.update(7, 1, true, true);
+        filter.update(7, 2, true, false);
+
+        long[] holders = new long[filter.getWords()];
+        filter.copyTagHolders(7, holders);
+        assertEquals(0b110, holders[0]);
+        assertTrue(filter.isValidElsewhere(7, 2));
+        assertFalse(filter.isValidElsewhere(7, 1));
+
+        filter.update(7, 1, false, false);
+        assertFalse(filter.isValidElsewhere(7, 2));
+        filter.update(7, 2, false, false);
+        filter.copyTagHolders(7, holders);
+        assertEquals(0, holders[0]);
+    }
+
+    /**
+     * Blocks leave the table by shifting the following entries of their cluster back, the ones left must all stay
+     * reachable from their home slot, through growth of the table too.
+     */
+    @Test
+    void findsEveryBlockAfterRemovals() {
+        SnoopFilter filter = new SnoopFilter();
+        filter.ensureCaches(8);
+        Random random = new Random(0);
+        // random block ids, consecutive ones hash to distinct slots and would never form clusters
+        long[] blocks = new long[2300];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = random.nextInt(1 << 24);
+        }
+        Map<Long, Long> expected = new HashMap<>();
+        long[] holders = new long[filter.getWords()];
+        for (int i = 0; i < 200_000; i++) {
+            // the blocks pile up, then most of them leave
+            long block = blocks[random.nextInt(300 + i / 100)];
+            int cache = random.nextInt(8);
+            boolean holdsTag = i < 150_000 ? random.nextInt(3) > 0 : random.nextInt(4) == 0;
+            boolean valid = holdsTag && random.nextBoolean();
+            filter.update(block, cache, holdsTag, valid);
+            long bits = expected.getOrDefault(block, 0L);
+            bits = holdsTag ? bits | 1L << cache : bits & ~(1L << cache);
+            if (bits == 0) {
+                expected.remove(block);
+            } else {
+                expected.put(block, bits);
+            }
+
+            if (i % 1000 == 0) {
+                for (long b : blocks) {
+                    filter.copyTagHolders(b, holders);
+                    assertEquals(expected.getOrDefault(b, 0L).longValue(), holders[0], "block " + b);
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsItsBlocksWhenCachesAreAdded() {
+        SnoopFilter filter = new SnoopFilter();
+        filter.ensureCaches(4);
+        for (long block = 0; block < 100; block++) {
+            filter.update(block, (int) (block % 4), true, true);
+        }
+        filter.ensureCaches(130);
+        filter.update(5, 129, true, false);
+
+        long[] holders = new long[filter.getWords()];
+        assertEquals(3, holders.length);
+        filter.copyTagHolders(5, holders);
+        assertEquals(1L << 1, holders[0]);
+        assertEquals(1L << 1, holders[2]);
+        for (long block = 0; block < 100; block++) {
+            assertTrue(filter.isValidElsewhere(block, OUTSIDER), "block " + block);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AddressMapperTest {
+
+    @Test
+    void usesBitFieldsOnlyForPowersOfTwo() {
+        assertTrue(AddressMapper.create(64, 32, false) instanceof PowerOfTwoAddressMapper);
+        assertTrue(AddressMapper.create(64, 32, true) instanceof PowerOfTwoAddressMapper);
+        assertTrue(AddressMapper.create(48, 32, false) instanceof GeneralAddressMapper);
+        assertTrue(AddressMapper.create(64, 24, true) instanceof GeneralAddressMapper);
+    }
+
+    @Test
+    void mapsPowersOfTwoAsTheGeneralMapperDoes() {
+        AddressMapper bits = new PowerOfTwoAddressMapper(64, 32, false);
+        AddressMapper divisions = new GeneralAddressMapper(64, 32, false);
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            // negative ints are addresses of the upper half
+            int address = random.nextInt();
+            long block = bits.getBlock(address);
+            assertEquals(Integer.toUnsignedLong(address) / 32, block);
+            assertEquals(divisions.getBlock(address), block);
+            assertEquals(block % 64, bits.getSet(block));
+            assertEquals(divisions.getSet(block), bits.getSet(block));
+            assertEquals(divisions.getTag(block), bits.getTag(block));
+            assertEquals(address & ~31, bits.getAddress(block));
+        }
+    }
+
+    @Test
+    void findsEveryBlockBackFromItsSetAndTag() {
+        AddressMapper[] mappers = {
+                new PowerOfTwoAddressMapper(64, 32, false),
+                new PowerOfTwoAddressMapper(64, 32, true),
+                new GeneralAddressMapper(48, 24, false),
+                new GeneralAddressMapper(48, 24, true)
+        };
+        Random random = new Random(2);
+        for (AddressMapper mapper : mappers) {
+            for (int i = 0; i < 10_000; i++) {
+                long block = mapper.getBlock(random.nextInt());
+                int set = mapper.getSet(block);
+                assertTrue(set >= 0 && set < mapper.getNumSets());
+                assertEquals(block, mapper.getBlock(set, mapper.getTag(block)));
+            }
+        }
+    }
+
+    @Test
+    void hashingSpreadsBlocksThatShareASetWithoutIt() {
+        for (int numSets : new int[]{64, 48}) {
+            AddressMapper modulo = AddressMapper.create(numSets, 32, false);
+            AddressMapper hashed = AddressMapper.create(numSets, 32, true);
+            Set<Integer> moduloSets = new HashSet<>();
+            Set<Integer> hashedSets = new HashSet<>();
+            // blocks numSets apart, with tags 0 to numSets - 1
+            for (long block = 5; block < (long) numSets * numSets; block += numSets) {
+                moduloSets.add(modulo.getSet(block));
+                hashedSets.add(hashed.getSet(block));
+            }
+            assertEquals(1, moduloSets.size());
+            assertEquals(numSets, hashedSets.size());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package cache.replacement;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class RripReplacementTest {
+
+    @Test
+    void evictsTheFirstDistantBlockAfterAgingTheSet() {
+        RripReplacement srrip = new RripReplacement(1, 4, false);
+        for (int way = 0; way < 4; way++) {
+            assertEquals(way, srrip.victim(0));
+            srrip.fill(0, way);
+        }
+        srrip.access(0, 0);
+        // ways 1 to 3 age from long to distant, the hit way 0 stays near
+        assertEquals(1, srrip.victim(0));
+        srrip.fill(0, 1);
+        assertEquals(2, srrip.victim(0));
+    }
+
+    @Test
+    void keepsThePredictionsOfWaysInOtherWordsAndSets() {
+        // 40 ways take two longs per set, way 33 sits in the second one
+        RripReplacement srrip = new RripReplacement(2, 40, false);
+        for (int way = 0; way < 40; way++) {
+            srrip.fill(0, way);
+        }
+        srrip.access(0, 33);
+        for (int i = 0; i < 39; i++) {
+            int victim = srrip.victim(0);
+            assertNotEquals(33, victim);
+            srrip.fill(0, victim);
+        }
+        // the refilled ways age from long to distant while way 33 only gets to long
+        assertEquals(0, srrip.victim(0));
+        // nothing was filled in set 1, all its blocks are still distant
+        assertEquals(0, srrip.victim(1));
+    }
+
+    @Test
+    void bimodalInsertsOneBlockInThirtyTwoAsLong() {
+        RripReplacement brrip = new RripReplacement(1, 2, true);
+        for (int i = 1; i < 32; i++) {
+            // distant on insertion, the block is the next victim
+            assertEquals(0, brrip.victim(0));
+            brrip.fill(0, 0);
+        }
+        brrip.fill(0, 0);
+        assertEquals(1, brrip.victim(0));
+    }
+}
@@ -0,0 +1,56 @@
+package cache.replacement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreePlruReplacementTest {
+
+    @Test
+    void evictsAwayFromTheLastAccesses() {
+        TreePlruReplacement plru = new TreePlruReplacement(1, 4);
+        for (int way = 0; way < 4; way++) {
+            plru.access(0, way);
+        }
+        assertEquals(0, plru.victim(0));
+        // the root now points to the right half, where 3 was accessed after 2
+        plru.access(0, 0);
+        assertEquals(2, plru.victim(0));
+        plru.access(0, 2);
+        assertEquals(1, plru.victim(0));
+    }
+
+    @Test
+    void replacingTheVictimGoesThroughEveryWay() {
+        // 64 ways use the 63 bits of the tree up to the sign bit
+        for (int associativity : new int[]{2, 8, 64}) {
+            TreePlruReplacement plru = new TreePlruReplacement(1, associativity);
+            BitSet evicted = new BitSet(associativity);
+            for (int i = 0; i < associativity; i++) {
+                int victim = plru.victim(0);
+                assertTrue(victim >= 0 && victim < associativity);
+                evicted.set(victim);
+                plru.fill(0, victim);
+            }
+            assertEquals(associativity, evicted.cardinality());
+        }
+    }
+
+    @Test
+    void neverEvictsTheBlockJustAccessed() {
+        Random random = new Random(3);
+        TreePlruReplacement plru = new TreePlruReplacement(2, 64);
+        for (int i = 0; i < 10_000; i++) {
+            int way = random.nextInt(64);
+            plru.access(1, way);
+            assertNotEquals(way, plru.victim(1));
+        }
+        // the other set kept its own tree
+        assertEquals(0, plru.victim(0));
+    }
+}
@@ -0,0 +1,52 @@
+package cpu;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoreBufferTest {
+
+    @Test
+    void drainsInOrderAcrossTheEndOfItsArray() {
+        StoreBuffer buffer = new StoreBuffer(3);
+        int next = 0;
+        int drained = 0;
+        // head and tail go around the array several times
+        for (int round = 0; round < 5; round++) {
+            while (!buffer.isFull()) {
+                buffer.add(next++);
+            }
+            assertEquals(drained, buffer.peek());
+            buffer.poll();
+            drained++;
+            buffer.add(next++);
+            while (!buffer.isEmpty()) {
+                assertEquals(drained++, buffer.peek());
+                buffer.poll();
+            }
+        }
+        assertEquals(next, drained);
+    }
+
+    @Test
+    void forwardsOnlyTheStoresItHolds() {
+        StoreBuffer buffer = new StoreBuffer(2);
+        buffer.add(0x10);
+        buffer.poll();
+        buffer.add(0x20);
+        buffer.add(0x30);
+        // 0x30 sits in the first slot again, behind 0x20 in the second
+        assertTrue(buffer.isFull());
+        assertTrue(buffer.contains(0x20));
+        assertTrue(buffer.contains(0x30));
+        assertFalse(buffer.contains(0x10));
+
+        buffer.poll();
+        assertFalse(buffer.contains(0x20));
+        assertTrue(buffer.contains(0x30));
+        buffer.poll();
+        assertFalse(buffer.contains(0x30));
+    }
+}
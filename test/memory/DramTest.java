@@ -0,0 +1,56 @@
+package memory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DramTest {
+
+    private static final int ROW_SIZE = 1024;
+    private static final int HIT = 10;
+    private static final int MISS = 20;
+    private static final int CONFLICT = 30;
+
+    @Test
+    void classifiesAccessesByTheOpenRowOfTheirBank() {
+        // two banks: rows 0, 2, 4... in bank 0, rows 1, 3, 5... in bank 1
+        Dram dram = new Dram(1, 2, ROW_SIZE, true, HIT, MISS, CONFLICT);
+
+        assertEquals(MISS, dram.read(0, 0));
+        assertEquals(HIT, dram.write(64, 100));
+        assertEquals(CONFLICT, dram.read(2 * ROW_SIZE, 200));
+        assertEquals(MISS, dram.read(ROW_SIZE, 300));
+        assertEquals(HIT, dram.read(2 * ROW_SIZE + 512, 400));
+
+        assertEquals(2, dram.getRowHits());
+        assertEquals(2, dram.getRowMisses());
+        assertEquals(1, dram.getRowConflicts());
+        assertEquals(40.0, dram.getRowBufferHitRate(), 1e-9);
+        assertEquals(0, dram.getBankWaitCycles());
+    }
+
+    @Test
+    void closedPagesMakeEveryAccessARowMiss() {
+        Dram dram = new Dram(1, 2, ROW_SIZE, false, HIT, MISS, CONFLICT);
+
+        assertEquals(MISS, dram.read(0, 0));
+        assertEquals(MISS, dram.read(64, 100));
+        assertEquals(MISS, dram.read(2 * ROW_SIZE, 200));
+        assertEquals(0, dram.getRowHits());
+        assertEquals(0, dram.getRowConflicts());
+    }
+
+    @Test
+    void anAccessWaitsForItsBankOnly() {
+        Dram dram = new Dram(2, 1, ROW_SIZE, true, HIT, MISS, CONFLICT);
+
+        // bank 0 is busy until cycle 20
+        assertEquals(MISS, dram.read(0, 0));
+        assertEquals(15 + HIT, dram.read(128, 5));
+        // the second access keeps bank 0 busy until cycle 30, bank 1 is free
+        assertEquals(MISS, dram.read(ROW_SIZE, 6));
+        assertEquals(20 + CONFLICT, dram.write(2 * ROW_SIZE, 10));
+
+        assertEquals(15 + 20, dram.getBankWaitCycles());
+    }
+}
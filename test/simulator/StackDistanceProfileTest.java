@@ -0,0 +1,64 @@
+package simulator;
+
+import cache.AddressMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StackDistanceProfileTest {
+
+    private static final int NUM_SETS = 16;
+    private static final int BLOCK_SIZE = 32;
+    private static final int MAX_ASSOCIATIVITY = 8;
+
+    @Test
+    void givesTheMissRatesOfLruCachesOfEveryAssociativity() {
+        List<Integer> addresses = new ArrayList<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 50_000; i++) {
+            // a hot region revisited often and a larger one, so every depth of the stacks is hit
+            addresses.add(random.nextBoolean() ? random.nextInt(1 << 13) : random.nextInt(1 << 17));
+        }
+
+        StackDistanceProfile profile = new StackDistanceProfile(AddressMapper.create(NUM_SETS, BLOCK_SIZE, false),
+                MAX_ASSOCIATIVITY);
+        addresses.forEach(profile::access);
+
+        for (int associativity = 1; associativity <= MAX_ASSOCIATIVITY; associativity++) {
+            assertEquals(simulateLru(addresses, associativity), profile.getMissRate(associativity), 1e-9,
+                    "associativity " + associativity);
+        }
+    }
+
+    @Test
+    void givesNoMissesWithoutAccesses() {
+        StackDistanceProfile profile = new StackDistanceProfile(AddressMapper.create(NUM_SETS, BLOCK_SIZE, false),
+                MAX_ASSOCIATIVITY);
+        assertEquals(0, profile.getMissRate(1));
+    }
+
+    // the miss rate of a cache keeping, in every set, its most recently used blocks first
+    private static double simulateLru(List<Integer> addresses, int associativity) {
+        Map<Integer, LinkedList<Integer>> sets = new HashMap<>();
+        int misses = 0;
+        for (int address : addresses) {
+            Integer block = address / BLOCK_SIZE;
+            LinkedList<Integer> blocks = sets.computeIfAbsent(block % NUM_SETS, set -> new LinkedList<>());
+            if (!blocks.remove(block)) {
+                misses++;
+                if (blocks.size() == associativity) {
+                    blocks.removeLast();
+                }
+            }
+            blocks.addFirst(block);
+        }
+        return ((double) misses) / addresses.size() * 100;
+    }
+}